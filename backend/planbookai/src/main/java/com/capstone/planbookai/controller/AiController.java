@@ -1,35 +1,89 @@
 package com.capstone.planbookai.controller;
 
+import com.capstone.planbookai.dto.SimilarQuestionResponse;
 import com.capstone.planbookai.service.GeminiService;
+import com.capstone.planbookai.service.QuestionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/ai")
 public class AiController {
 
+    // Id các câu đã có trong ngân hàng gần trùng với câu AI vừa sinh, cách nhau bởi dấu phẩy
+    public static final String SIMILAR_HEADER = "X-Similar-Question-Ids";
+
+    private static final String[] OPTION_KEYS = {"A", "B", "C", "D", "E", "F"};
+
     @Autowired
     private GeminiService geminiService;
 
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Pool mặc định của Spring Boot cho việc nền: dò trùng có truy vấn JPA, không chạy trên luồng của HttpClient
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor blockingExecutor;
+
+    // Trả về CompletableFuture: luồng servlet được trả lại trong lúc chờ mô hình, request tiếp tục khi có kết quả.
+    // Bước dò câu trùng chặn (truy vấn DB) nên chuyển sang blockingExecutor, không giữ luồng của HttpClient dùng chung.
     @PostMapping("/generate-question")
-    public ResponseEntity<?> generateQuestion(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<String>> generateQuestion(@RequestBody Map<String, String> request) {
         String topic = request.get("topic");
         String level = request.get("level");
         String subject = request.get("subject");
         String grade = request.get("grade");
         String promptName = request.get("promptName"); // Optional
 
-        String result = geminiService.generateQuestion(topic, level, subject, grade, promptName);
-        
-        // Result is expected to be a JSON string from AI.
-        // We return it directly. Ideally we might want to parse it to ensure valid JSON,
-        // but for now let's return it as string or object.
-        // If the AI returns a JSON string, we can try to return it as raw JSON.
-        
-        return ResponseEntity.ok(result);
+        return geminiService.generateQuestion(topic, level, subject, grade, promptName).thenApplyAsync(result -> {
+            // Body giữ nguyên; nếu câu sinh ra gần trùng câu đã có thì báo qua header
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            List<Long> similarIds = findSimilarIds(result);
+            if (!similarIds.isEmpty()) {
+                response.header(SIMILAR_HEADER, similarIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            }
+            return response.body(result);
+        }, blockingExecutor);
+    }
+
+    // Đọc nội dung + các phương án theo định dạng mà form tạo câu hỏi đang dùng ({question|content, A..D});
+    // kết quả không phải JSON hợp lệ thì bỏ qua bước kiểm tra
+    private List<Long> findSimilarIds(String generated) {
+        List<Long> ids = new ArrayList<>();
+        try {
+            JsonNode node = objectMapper.readTree(generated);
+            String content = node.path("question").asText(node.path("content").asText(""));
+            if (content.isBlank()) {
+                return ids;
+            }
+            List<String> answers = new ArrayList<>();
+            for (String key : OPTION_KEYS) {
+                JsonNode option = node.has(key) ? node.get(key) : node.get(key.toLowerCase());
+                if (option != null && option.isTextual()) {
+                    answers.add(option.asText());
+                }
+            }
+            SimilarQuestionResponse similar = questionService.findDuplicatesOf(content, answers);
+            similar.items.forEach(item -> ids.add(item.question.getId()));
+        } catch (Exception e) {
+            // Không chặn kết quả sinh câu hỏi chỉ vì không phân tích được
+        }
+        return ids;
     }
 }
@@ -1,13 +1,17 @@
 package com.capstone.planbookai.controller;
 
 import com.capstone.planbookai.dto.DashboardResponse;
+import com.capstone.planbookai.service.ActivityFeed;
 import com.capstone.planbookai.service.DashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -17,8 +21,17 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private ActivityFeed activityFeed;
+
     @GetMapping("/stats")
     public ResponseEntity<DashboardResponse> getDashboardStats() {
         return ResponseEntity.ok(dashboardService.getDashboardData());
     }
+
+    // Server-Sent Events: mỗi hoạt động mới là một sự kiện "activity" (data = JSON như trong /stats)
+    @GetMapping(value = "/activity/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamActivity(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return activityFeed.subscribe(lastEventId);
+    }
 }
\ No newline at end of file
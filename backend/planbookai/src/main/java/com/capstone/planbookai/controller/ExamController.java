@@ -3,12 +3,27 @@ package com.capstone.planbookai.controller;
 import com.capstone.planbookai.dto.*;
 import com.capstone.planbookai.entity.Exam;
 import com.capstone.planbookai.entity.StudentResult;
+import com.capstone.planbookai.service.BulkSubmissionService;
 import com.capstone.planbookai.service.ExamService;
+import com.capstone.planbookai.service.ItemAnalysisService;
+import com.capstone.planbookai.service.OcrBatchGradingService;
+import com.capstone.planbookai.service.ResultExportService;
+import com.capstone.planbookai.service.ResultQueueFullException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/exams")
@@ -16,9 +31,23 @@ import java.util.List;
 public class ExamController {
 
     private final ExamService examService;
+    private final BulkSubmissionService bulkSubmissionService;
+    private final ItemAnalysisService itemAnalysisService;
+    private final OcrBatchGradingService ocrBatchGradingService;
+    private final ResultExportService resultExportService;
 
-    public ExamController(ExamService examService) {
+    public ExamController(
+            ExamService examService,
+            BulkSubmissionService bulkSubmissionService,
+            ItemAnalysisService itemAnalysisService,
+            OcrBatchGradingService ocrBatchGradingService,
+            ResultExportService resultExportService
+    ) {
         this.examService = examService;
+        this.bulkSubmissionService = bulkSubmissionService;
+        this.itemAnalysisService = itemAnalysisService;
+        this.ocrBatchGradingService = ocrBatchGradingService;
+        this.resultExportService = resultExportService;
     }
 
     // ADMIN/TEACHER – TẠO ĐỀ THI
@@ -28,6 +57,13 @@ public class ExamController {
         return ResponseEntity.ok(exam);
     }
 
+    // ADMIN/TEACHER – TẠO NHIỀU MÃ ĐỀ TỪ CÙNG MỘT BỘ CÂU HỎI
+    @PostMapping("/generate/variants")
+    public ResponseEntity<List<Exam>> generateExamVariants(@RequestBody GenerateExamRequest req) {
+        List<Exam> exams = examService.generateExamVariants(req);
+        return ResponseEntity.ok(exams);
+    }
+
     // LẤY DANH SÁCH TẤT CẢ ĐỀ THI
     @GetMapping
     public ResponseEntity<List<Exam>> getAllExams() {
@@ -35,6 +71,15 @@ public class ExamController {
         return ResponseEntity.ok(exams);
     }
 
+    // DANH SÁCH ĐỀ THI THEO TRANG (keyset): ?cursor=<nextCursor của trang trước>&size=20&topicId=
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Exam>> getExamsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long topicId) {
+        return ResponseEntity.ok(examService.getExamsPage(cursor, size, topicId));
+    }
+
     // LẤY CHI TIẾT ĐỀ THI THEO ID
     @GetMapping("/{id}")
     public ResponseEntity<ExamDetailResponse> getExamDetail(@PathVariable Long id) {
@@ -43,10 +88,19 @@ public class ExamController {
     }
 
     // STUDENT – LẤY ĐỀ BẰNG EXAM CODE
+    // Trả thẳng JSON đã dựng sẵn trong cache (cùng cấu trúc RenderExamResponse)
     @GetMapping("/code/{examCode}")
-    public ResponseEntity<RenderExamResponse> getExamByCode(@PathVariable String examCode) {
-        RenderExamResponse exam = examService.renderExamByCode(examCode);
-        return ResponseEntity.ok(exam);
+    public ResponseEntity<byte[]> getExamByCode(@PathVariable String examCode) {
+        byte[] exam = examService.renderExamSnapshot(examCode);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(exam);
+    }
+
+    // THỐNG KÊ CACHE ĐỀ THI (hit / miss / eviction)
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Long>> getSnapshotCacheStats() {
+        return ResponseEntity.ok(examService.getSnapshotCacheStats());
     }
 
     // STUDENT – NỘP BÀI
@@ -56,17 +110,47 @@ public class ExamController {
         return ResponseEntity.ok(result);
     }
 
-    // TEACHER – UPLOAD ẢNH ĐỂ CHẤM BẰNG OCR (Chuẩn bị)
+    // NỘP HÀNG LOẠT – body là mảng JSON các SubmitExamRequest (đọc/ghi dạng streaming)
+    @PostMapping(value = "/submit/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void submitBulk(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        bulkSubmissionService.gradeAll(request.getInputStream(), response.getOutputStream());
+    }
+
+    // TEACHER – TẢI PHIẾU TRẢ LỜI TRẮNG (PNG) ĐỂ IN CHO HỌC SINH
+    @GetMapping(value = "/{examId}/answer-sheet", produces = MediaType.IMAGE_PNG_VALUE)
+    public ResponseEntity<byte[]> getAnswerSheet(@PathVariable Long examId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .body(examService.renderAnswerSheet(examId));
+    }
+
+    // TEACHER – UPLOAD ẢNH PHIẾU TRẢ LỜI ĐỂ CHẤM (OMR)
     @PostMapping("/{examId}/grade-ocr")
     public ResponseEntity<StudentResult> gradeByOCR(
             @PathVariable Long examId,
             @RequestParam Long studentId,
             @RequestParam("file") MultipartFile file) {
-        // TODO: Implement OCR logic
         StudentResult result = examService.gradeByOCR(examId, studentId, file);
         return ResponseEntity.ok(result);
     }
 
+    // TEACHER – UPLOAD FILE ZIP ẢNH PHIẾU CỦA CẢ LỚP (tên ảnh bắt đầu bằng mã học sinh), chấm ở nền
+    @PostMapping("/{examId}/grade-ocr/batch")
+    public ResponseEntity<OcrBatchJobResponse> gradeByOCRBatch(
+            @PathVariable Long examId,
+            @RequestParam("file") MultipartFile file) throws IOException {
+        OcrBatchJobResponse job = ocrBatchGradingService.start(examId, file);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    // TIẾN ĐỘ CHẤM HÀNG LOẠT
+    @GetMapping("/{examId}/grade-ocr/batch/{jobId}")
+    public ResponseEntity<OcrBatchJobResponse> getOCRBatchJob(@PathVariable Long examId, @PathVariable String jobId) {
+        return ResponseEntity.ok(ocrBatchGradingService.getJob(examId, jobId));
+    }
+
     // LẤY DANH SÁCH KẾT QUẢ CỦA 1 ĐỀ THI
     @GetMapping("/{examId}/results")
     public ResponseEntity<List<StudentResult>> getExamResults(@PathVariable Long examId) {
@@ -74,6 +158,41 @@ public class ExamController {
         return ResponseEntity.ok(results);
     }
 
+    // KẾT QUẢ CỦA 1 ĐỀ THI THEO TRANG (keyset)
+    @GetMapping("/{examId}/results/page")
+    public ResponseEntity<CursorPage<StudentResult>> getExamResultsPage(
+            @PathVariable Long examId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(examService.getResultsPage(examId, cursor, size));
+    }
+
+    // XUẤT KẾT QUẢ RA FILE CSV / XLSX (ghi streaming từng dòng, dùng cho dữ liệu lớn)
+    @GetMapping("/{examId}/results/export")
+    public ResponseEntity<StreamingResponseBody> exportExamResults(
+            @PathVariable Long examId,
+            @RequestParam(defaultValue = "csv") String format) {
+        ResultExportService.Format exportFormat = ResultExportService.parseFormat(format);
+        boolean xlsx = exportFormat == ResultExportService.Format.XLSX;
+        String fileName = "exam-" + examId + "-results." + (xlsx ? "xlsx" : "csv");
+        MediaType contentType = xlsx
+                ? MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                : new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+        StreamingResponseBody body = out -> resultExportService.export(examId, exportFormat, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .contentType(contentType)
+                .body(body);
+    }
+
+    // PHIẾU BÀI LÀM ĐÃ CHẤM CỦA MỘT HỌC SINH
+    @GetMapping("/{examId}/results/{resultId}/sheet")
+    public ResponseEntity<GradedSheetResponse> getGradedSheet(@PathVariable Long examId, @PathVariable Long resultId) {
+        GradedSheetResponse sheet = examService.getGradedSheet(examId, resultId);
+        return ResponseEntity.ok(sheet);
+    }
+
     // THỐNG KÊ KẾT QUẢ
     @GetMapping("/{examId}/statistics")
     public ResponseEntity<ExamStatisticsResponse> getExamStatistics(@PathVariable Long examId) {
@@ -81,10 +200,48 @@ public class ExamController {
         return ResponseEntity.ok(stats);
     }
 
+    // THỨ HẠNG PHẦN TRĂM CỦA MỘT ĐIỂM / MỘT HỌC SINH
+    @GetMapping("/{examId}/statistics/percentile-rank")
+    public ResponseEntity<PercentileRankResponse> getPercentileRank(
+            @PathVariable Long examId,
+            @RequestParam(required = false) Double score,
+            @RequestParam(required = false) Long studentId) {
+        PercentileRankResponse rank = examService.getPercentileRank(examId, score, studentId);
+        return ResponseEntity.ok(rank);
+    }
+
+    // DỰNG LẠI THỐNG KÊ TỪ DỮ LIỆU ĐÃ LƯU
+    @PostMapping("/{examId}/statistics/rebuild")
+    public ResponseEntity<ExamStatisticsResponse> rebuildExamStatistics(@PathVariable Long examId) {
+        ExamStatisticsResponse stats = examService.rebuildExamStatistics(examId);
+        return ResponseEntity.ok(stats);
+    }
+
+    // PHÂN TÍCH CÂU HỎI (độ khó, độ phân biệt, phương án nhiễu) và cập nhật chỉ số cho Question
+    @PostMapping("/{examId}/item-analysis")
+    public ResponseEntity<ItemAnalysisResponse> analyzeItems(@PathVariable Long examId) {
+        ItemAnalysisResponse analysis = itemAnalysisService.analyzeExam(examId);
+        return ResponseEntity.ok(analysis);
+    }
+
     // XÓA ĐỀ THI
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteExam(@PathVariable Long id) {
         examService.deleteExam(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Dữ liệu gửi lên không hợp lệ -> 400
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+    }
+
+    // Hàng đợi ghi kết quả đầy (chế độ write-behind) -> 429 + Retry-After
+    @ExceptionHandler(ResultQueueFullException.class)
+    public ResponseEntity<String> handleResultQueueFull(ResultQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
 }
\ No newline at end of file
@@ -1,17 +1,32 @@
 package com.capstone.planbookai.controller;
 
+import com.capstone.planbookai.dto.CursorPage;
+import com.capstone.planbookai.dto.QuestionSearchResponse;
+import com.capstone.planbookai.dto.SimilarQuestionResponse;
 import com.capstone.planbookai.entity.Answer;
 import com.capstone.planbookai.entity.Question;
+import com.capstone.planbookai.entity.QuestionLevel;
 import com.capstone.planbookai.entity.Topic;
 import com.capstone.planbookai.payload.request.QuestionRequest;
+import com.capstone.planbookai.payload.request.QuestionUpdateRequest;
 import com.capstone.planbookai.repository.TopicRepository;
+import com.capstone.planbookai.service.DuplicateQuestionException;
+import com.capstone.planbookai.service.QuestionImportService;
 import com.capstone.planbookai.service.QuestionService;
+import com.capstone.planbookai.service.importer.QuestionRecordReader;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/questions")
@@ -24,18 +39,52 @@ public class QuestionController {
     @Autowired
     private TopicRepository topicRepository;
 
+    @Autowired
+    private QuestionImportService questionImportService;
+
     @GetMapping
     public List<Question> getAllQuestions() {
         return questionService.getAllQuestions();
     }
 
+    // Danh sách theo trang (keyset): ?cursor=<nextCursor của trang trước>&size=20&topicId=&level=
+    @GetMapping("/page")
+    public CursorPage<Question> getQuestionsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Long topicId,
+            @RequestParam(required = false) QuestionLevel level) {
+        return questionService.getQuestionsPage(cursor, size, topicId, level);
+    }
+
+    // Tìm kiếm toàn văn, không phân biệt dấu: ?q=phuong trinh bac hai&topicId=&level=&limit=20
+    @GetMapping("/search")
+    public QuestionSearchResponse searchQuestions(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Long topicId,
+            @RequestParam(required = false) QuestionLevel level,
+            @RequestParam(required = false) Integer limit) {
+        return questionService.searchQuestions(query, topicId, level, limit);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Question> getQuestionById(@PathVariable Long id) {
         return ResponseEntity.ok(questionService.getQuestionById(id));
     }
 
+    // Câu hỏi gần trùng: ?minSimilarity=0.5 để nới ngưỡng (mặc định = ngưỡng coi là trùng)
+    @GetMapping("/{id}/similar")
+    public SimilarQuestionResponse getSimilarQuestions(
+            @PathVariable Long id,
+            @RequestParam(required = false) Float minSimilarity,
+            @RequestParam(required = false) Integer limit) {
+        return questionService.findSimilarQuestions(id, minSimilarity, limit);
+    }
+
+    // Câu gần trùng câu đã có -> 409 kèm danh sách câu trùng; ?force=true để vẫn tạo
     @PostMapping
-    public ResponseEntity<?> createQuestion(@RequestBody QuestionRequest request) {
+    public ResponseEntity<?> createQuestion(@RequestBody QuestionRequest request,
+                                            @RequestParam(defaultValue = "false") boolean force) {
         try {
             Question question = new Question();
             question.setContent(request.getContent());
@@ -59,13 +108,42 @@ public class QuestionController {
             }
             question.setAnswers(answers);
 
-            Question created = questionService.createQuestion(question);
+            Question created = questionService.createQuestion(question, force);
             return ResponseEntity.ok(created);
+        } catch (DuplicateQuestionException e) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("message", e.getMessage());
+            body.put("similar", e.getSimilar());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
 
+    // Import hàng loạt từ file CSV / JSON / Aiken (?format=csv|json|aiken, mặc định đoán theo đuôi file).
+    // topicId/level: giá trị mặc định cho dòng không ghi (bắt buộc với Aiken); force=true để nhận cả câu gần trùng.
+    // Trả về mảng JSON kết quả từng dòng [{row, questionId, error}], ghi dần theo từng khúc.
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public void importQuestions(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) Long topicId,
+            @RequestParam(required = false) QuestionLevel level,
+            @RequestParam(defaultValue = "false") boolean force,
+            HttpServletResponse response) throws IOException {
+        QuestionRecordReader.Format importFormat = QuestionRecordReader.parseFormat(format, file.getOriginalFilename());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        questionImportService.importQuestions(
+                file.getInputStream(), importFormat, topicId, level, force, response.getOutputStream());
+    }
+
+    // Sửa nhiều câu hỏi trong một transaction; trường null được giữ nguyên (xem QuestionUpdateRequest)
+    @PutMapping("/bulk")
+    public List<Question> updateQuestions(@RequestBody List<QuestionUpdateRequest> requests) {
+        return questionService.updateQuestions(requests);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> updateQuestion(@PathVariable Long id, @RequestBody QuestionRequest request) {
         try {
@@ -82,6 +160,7 @@ public class QuestionController {
             if (request.getAnswers() != null) {
                 for (QuestionRequest.AnswerDTO dto : request.getAnswers()) {
                     Answer answer = new Answer();
+                    answer.setId(dto.getId());           // Để khớp với đáp án đã có (không tạo lại)
                     answer.setCode(dto.getCode());
                     answer.setContent(dto.getContent());
                     answer.setIsCorrect(dto.getIsCorrect());
@@ -103,4 +182,10 @@ public class QuestionController {
         questionService.deleteQuestion(id);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    // Dữ liệu gửi lên không hợp lệ -> 400
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+    }
+}
@@ -1,25 +1,53 @@
 package com.capstone.planbookai.controller;
 
-import com.capstone.planbookai.entity.Topic;
-import com.capstone.planbookai.repository.TopicRepository;
+import com.capstone.planbookai.service.ReferenceDataCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-
+// Dữ liệu danh mục phục vụ từ ReferenceDataCache (không truy vấn DB).
+// Trả ETag; request GET có If-None-Match trùng ETag được Spring trả 304 không kèm body.
 @RestController
-@RequestMapping("/api/topics")
+@RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class TopicController {
 
     @Autowired
-    private TopicRepository topicRepository;
+    private ReferenceDataCache referenceDataCache;
+
+    // Danh sách chủ đề (kèm môn học, khối lớp) - giữ nguyên cấu trúc List<Topic>
+    @GetMapping("/topics")
+    public ResponseEntity<byte[]> getAllTopics() {
+        return cached(referenceDataCache.topics());
+    }
+
+    @GetMapping("/subjects")
+    public ResponseEntity<byte[]> getAllSubjects() {
+        return cached(referenceDataCache.subjects());
+    }
+
+    @GetMapping("/grades")
+    public ResponseEntity<byte[]> getAllGrades() {
+        return cached(referenceDataCache.grades());
+    }
+
+    // Cây môn học -> khối lớp -> chủ đề
+    @GetMapping("/reference-data")
+    public ResponseEntity<byte[]> getReferenceData() {
+        return cached(referenceDataCache.tree());
+    }
 
-    @GetMapping
-    public List<Topic> getAllTopics() {
-        return topicRepository.findAll();
+    // no-cache: trình duyệt được giữ bản sao nhưng phải hỏi lại (rẻ, thường là 304) trước khi dùng
+    private static ResponseEntity<byte[]> cached(ReferenceDataCache.Entry entry) {
+        return ResponseEntity.ok()
+                .eTag(entry.etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(entry.json);
     }
 }
@@ -0,0 +1,31 @@
+package com.capstone.planbookai.dto;
+
+import lombok.Getter;
+
+// Một hoạt động gần đây trên dashboard. Tạo một lần tại nơi phát sinh (tóm tắt đã là văn bản thuần), không sửa sau đó.
+// Giữ các trường cũ của RecentActivity (id, type, title, description, time) để giao diện không phải đổi.
+@Getter
+public class ActivityEvent {
+
+    public enum Type {
+        QUESTION, EXAM, RESULT
+    }
+
+    private final long seq;        // số thứ tự tăng dần trong luồng hoạt động (id của sự kiện SSE)
+    private final Long id;         // id đối tượng liên quan (câu hỏi / đề / kết quả)
+    private final Type type;
+    private final String title;
+    private final String description;
+    private final String time;     // nhãn hiển thị
+    private final long createdAt;  // epoch millis
+
+    public ActivityEvent(long seq, Long id, Type type, String title, String description, String time, long createdAt) {
+        this.seq = seq;
+        this.id = id;
+        this.type = type;
+        this.title = title;
+        this.description = description;
+        this.time = time;
+        this.createdAt = createdAt;
+    }
+}
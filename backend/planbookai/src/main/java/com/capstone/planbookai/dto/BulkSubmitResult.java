@@ -0,0 +1,10 @@
+package com.capstone.planbookai.dto;
+
+// Kết quả chấm của một bài trong lần nộp hàng loạt (index = vị trí trong mảng gửi lên)
+public class BulkSubmitResult {
+    public int index;
+    public Long examId;
+    public Long studentId;
+    public Double score;
+    public String error; // null nếu chấm và lưu thành công
+}
@@ -0,0 +1,33 @@
+package com.capstone.planbookai.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Một trang kết quả phân trang theo khóa (keyset): trang sau lấy các bản ghi có id < nextCursor
+public class CursorPage<T> {
+    public List<T> items;
+    public Long nextCursor; // null nếu đã hết dữ liệu
+    public boolean hasMore;
+
+    // rows được lấy dư một phần tử (size + 1) để biết còn trang sau hay không
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Long> idOf) {
+        CursorPage<T> page = new CursorPage<>();
+        page.hasMore = rows.size() > size;
+        page.items = page.hasMore ? rows.subList(0, size) : rows;
+        page.nextCursor = page.hasMore ? idOf.apply(page.items.get(size - 1)) : null;
+        return page;
+    }
+
+    // Kích thước trang hợp lệ: mặc định 20, tối đa 100
+    public static int clampSize(Integer size) {
+        if (size == null || size <= 0) {
+            return 20;
+        }
+        return Math.min(size, 100);
+    }
+
+    // Trang đầu: không có cursor -> lấy từ id lớn nhất
+    public static long startCursor(Long cursor) {
+        return cursor == null ? Long.MAX_VALUE : cursor;
+    }
+}
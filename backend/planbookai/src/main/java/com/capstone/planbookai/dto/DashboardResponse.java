@@ -10,15 +10,6 @@ public class DashboardResponse {
     private long totalExams;
     private long totalResults;
     
-    // Danh sách hoạt động
-    private List<RecentActivity> activities;
-
-    @Data
-    public static class RecentActivity {
-        private String title;
-        private String description;
-        private String time;
-        private String type;
-        private Long id;
-    }
+    // Danh sách hoạt động, mới nhất trước
+    private List<ActivityEvent> activities;
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.capstone.planbookai.dto;
+
+import com.capstone.planbookai.entity.QuestionLevel;
+
+// Một dòng phẳng (exam_question x question x answer) đọc bằng projection,
+// không nạp entity - dùng để dựng đề thi bằng đúng một câu truy vấn.
+public interface ExamAnswerRow {
+    Long getExamQuestionId();
+    Long getQuestionId();
+    String getAnswerOrder();
+    String getQuestionContent();
+    QuestionLevel getLevel();
+    Long getAnswerId();
+    String getAnswerCode();
+    String getAnswerContent();
+    Boolean getIsCorrect();
+}
@@ -0,0 +1,11 @@
+package com.capstone.planbookai.dto;
+
+// Thông tin đầu đề thi kèm tên chủ đề, đọc bằng một câu JOIN (không nạp entity Topic/Subject/Grade)
+public interface ExamHeaderRow {
+    Long getId();
+    Long getTopicId();
+    String getTopicTitle();
+    String getExamCode();
+    String getExamName();
+    Integer getDuration();
+}
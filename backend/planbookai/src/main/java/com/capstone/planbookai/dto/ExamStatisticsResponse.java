@@ -8,6 +8,15 @@ public class ExamStatisticsResponse {
     private Double averageScore;
     private Double maxScore;
     private Double minScore;
+    private Double standardDeviation;
+
+    // Phân vị từ sketch trong bộ nhớ, sai số tuyệt đối tối đa quantileErrorBound điểm
+    private Double medianScore;
+    private Double p10Score;
+    private Double p25Score;
+    private Double p75Score;
+    private Double p90Score;
+    private Double quantileErrorBound;
     private Map<String, Integer> scoreDistribution; // "0-2": 5, "2-4": 10, ...
 
     // Getters & Setters
@@ -26,6 +35,27 @@ public class ExamStatisticsResponse {
     public Double getMinScore() { return minScore; }
     public void setMinScore(Double minScore) { this.minScore = minScore; }
 
+    public Double getStandardDeviation() { return standardDeviation; }
+    public void setStandardDeviation(Double standardDeviation) { this.standardDeviation = standardDeviation; }
+
+    public Double getMedianScore() { return medianScore; }
+    public void setMedianScore(Double medianScore) { this.medianScore = medianScore; }
+
+    public Double getP10Score() { return p10Score; }
+    public void setP10Score(Double p10Score) { this.p10Score = p10Score; }
+
+    public Double getP25Score() { return p25Score; }
+    public void setP25Score(Double p25Score) { this.p25Score = p25Score; }
+
+    public Double getP75Score() { return p75Score; }
+    public void setP75Score(Double p75Score) { this.p75Score = p75Score; }
+
+    public Double getP90Score() { return p90Score; }
+    public void setP90Score(Double p90Score) { this.p90Score = p90Score; }
+
+    public Double getQuantileErrorBound() { return quantileErrorBound; }
+    public void setQuantileErrorBound(Double quantileErrorBound) { this.quantileErrorBound = quantileErrorBound; }
+
     public Map<String, Integer> getScoreDistribution() { return scoreDistribution; }
     public void setScoreDistribution(Map<String, Integer> scoreDistribution) { 
         this.scoreDistribution = scoreDistribution; 
@@ -12,6 +12,10 @@ public class GenerateExamRequest {
     private int medium;
     private int hard;
 
+    // Số mã đề cần tạo từ cùng một bộ câu hỏi (mặc định 1); chỉ dùng với /generate/variants,
+    // /generate từ chối giá trị > 1
+    private Integer variants;
+
     // --- GETTERS & SETTERS CHO TRƯỜNG MỚI ---
     public String getExamName() {
         return examName;
@@ -62,4 +66,12 @@ public class GenerateExamRequest {
     public void setHard(int hard) {
         this.hard = hard;
     }
+
+    public Integer getVariants() {
+        return variants;
+    }
+
+    public void setVariants(Integer variants) {
+        this.variants = variants;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.capstone.planbookai.dto;
+
+import java.util.List;
+
+// Phiếu bài làm đã chấm: từng câu theo thứ tự trong đề, lựa chọn của học sinh và đáp án đúng
+public class GradedSheetResponse {
+    public Long resultId;
+    public Long examId;
+    public Long studentId;
+    public Double score;
+    public int correctCount;
+    // true khi số câu trong đề đã đổi so với lúc nộp (VD: đã xóa câu hỏi): lựa chọn lưu theo vị trí
+    // không còn khớp với đề hiện tại nên không trả items
+    public boolean stale;
+    public List<Item> items;
+
+    public static class Item {
+        public int position;        // 1, 2, 3...
+        public Long questionId;
+        public String selectedCode; // null nếu bỏ trống, "INVALID" nếu tô nhiều ô
+        public String correctCode;
+        public boolean correct;
+    }
+}
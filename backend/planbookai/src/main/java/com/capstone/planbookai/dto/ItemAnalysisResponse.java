@@ -0,0 +1,22 @@
+package com.capstone.planbookai.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Kết quả phân tích câu hỏi của một đề: độ khó, độ phân biệt và tần suất chọn từng phương án
+public class ItemAnalysisResponse {
+    public Long examId;
+    public int submissions;  // số bài làm có dữ liệu lựa chọn
+    public long elapsedMs;
+    public List<Item> items;
+
+    public static class Item {
+        public int position;            // 1, 2, 3...
+        public Long questionId;
+        public String correctCode;
+        public int correctCount;
+        public Double difficulty;       // p-value: tỉ lệ làm đúng
+        public Double discrimination;   // point-biserial với điểm phần còn lại
+        public Map<String, Integer> optionCounts; // A..F, BLANK, INVALID
+    }
+}
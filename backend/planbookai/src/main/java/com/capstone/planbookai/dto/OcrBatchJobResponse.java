@@ -0,0 +1,23 @@
+package com.capstone.planbookai.dto;
+
+import java.util.List;
+
+// Tiến độ một lượt chấm phiếu hàng loạt (ZIP ảnh phiếu trả lời)
+public class OcrBatchJobResponse {
+    public String jobId;
+    public Long examId;
+    public String status;     // RUNNING / COMPLETED / FAILED
+    public int totalSheets;   // số ảnh trong file ZIP
+    public int processed;
+    public int succeeded;
+    public int failed;
+    public String error;      // lỗi của cả lượt (VD: file ZIP hỏng)
+    public List<Sheet> sheets; // các phiếu đã xử lý xong, theo thứ tự hoàn thành
+
+    public static class Sheet {
+        public String fileName;
+        public Long studentId;
+        public Double score;
+        public String error;
+    }
+}
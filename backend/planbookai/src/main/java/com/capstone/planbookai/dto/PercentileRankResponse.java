@@ -0,0 +1,10 @@
+package com.capstone.planbookai.dto;
+
+// Thứ hạng phần trăm của một điểm (hoặc điểm gần nhất của một học sinh) trong một đề
+public class PercentileRankResponse {
+    public Long examId;
+    public Long studentId;
+    public Double score;
+    public Double percentileRank;     // 0..100
+    public Double quantileErrorBound; // sai số làm tròn điểm của sketch
+}
@@ -0,0 +1,8 @@
+package com.capstone.planbookai.dto;
+
+// Kết quả import của một câu hỏi (row = thứ tự bản ghi trong file, bắt đầu từ 1)
+public class QuestionImportResult {
+    public int row;
+    public Long questionId; // id câu hỏi đã tạo, null nếu lỗi
+    public String error;    // null nếu import thành công
+}
@@ -0,0 +1,17 @@
+package com.capstone.planbookai.dto;
+
+import com.capstone.planbookai.entity.Question;
+
+import java.util.List;
+
+// Kết quả tìm kiếm câu hỏi, xếp theo độ liên quan giảm dần
+public class QuestionSearchResponse {
+    public String query;
+    public int totalMatches; // số câu hỏi khớp ít nhất một từ (trước khi cắt theo limit)
+    public List<Item> items;
+
+    public static class Item {
+        public double score;
+        public Question question;
+    }
+}
@@ -0,0 +1,17 @@
+package com.capstone.planbookai.dto;
+
+import com.capstone.planbookai.entity.Question;
+
+import java.util.List;
+
+// Các câu hỏi gần trùng, xếp theo độ tương đồng (Jaccard ước lượng, 0..1) giảm dần
+public class SimilarQuestionResponse {
+    public Long questionId; // câu đang xét, null nếu là nội dung chưa lưu
+    public float minSimilarity;
+    public List<Item> items;
+
+    public static class Item {
+        public float similarity;
+        public Question question;
+    }
+}
@@ -3,13 +3,16 @@ package com.capstone.planbookai.entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "exams") // Đổi tên bảng thành số nhiều cho chuẩn (tùy chọn)
+@Table(name = "exams", indexes = @Index(name = "idx_exams_topic_id", columnList = "topic_id, id")) // Đổi tên bảng thành số nhiều cho chuẩn (tùy chọn)
 public class Exam {
 
+    // Sequence pooled để nhiều mã đề tạo cùng lúc được INSERT theo batch (xem data.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "exams_seq")
+    @SequenceGenerator(name = "exams_seq", sequenceName = "exams_seq", allocationSize = 50)
     private Long id;
 
+    @Column(name = "topic_id")
     private Long topicId;
 
     @Column(length = 50, unique = true)
@@ -6,8 +6,11 @@ import jakarta.persistence.*;
 @Table(name = "exam_question")
 public class ExamQuestion {
 
+    // Dùng sequence (pooled) thay cho IDENTITY để Hibernate gom INSERT thành batch JDBC.
+    // MySQL không có sequence nên Hibernate giả lập bằng bảng exam_question_seq (xem data.sql).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "exam_question_seq")
+    @SequenceGenerator(name = "exam_question_seq", sequenceName = "exam_question_seq", allocationSize = 50)
     private Long id;
 
     private Long examId;
@@ -2,13 +2,14 @@ package com.capstone.planbookai.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Data
-@Table(name = "questions")
+@Table(name = "questions", indexes = @Index(name = "idx_questions_topic_level_id", columnList = "topic_id, level, id"))
 public class Question {
 
     @Id
@@ -28,10 +29,24 @@ public class Question {
     @com.fasterxml.jackson.annotation.JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
     private Topic topic;
 
+    // Nạp đáp án của nhiều câu hỏi trong một câu IN (tránh N+1 khi trả danh sách câu hỏi)
     @OneToMany(
         mappedBy = "question",
         cascade = CascadeType.ALL,
         orphanRemoval = true
     )
+    @BatchSize(size = 100)
     private List<Answer> answers = new ArrayList<>();
+
+    // Chỉ số phân tích câu hỏi, cộng dồn trên mọi đề đã phân tích (null nếu chưa có dữ liệu)
+    // difficultyIndex: tỉ lệ làm đúng (p-value, càng cao càng dễ)
+    @Column(name = "difficulty_index")
+    private Double difficultyIndex;
+
+    // discriminationIndex: point-biserial trung bình có trọng số theo số bài làm
+    @Column(name = "discrimination_index")
+    private Double discriminationIndex;
+
+    @Column(name = "attempt_count")
+    private Integer attemptCount;
 }
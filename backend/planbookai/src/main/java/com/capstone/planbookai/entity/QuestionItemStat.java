@@ -0,0 +1,36 @@
+package com.capstone.planbookai.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Kết quả phân tích một câu hỏi trong một đề (lần phân tích gần nhất của đề đó).
+// Cộng dồn theo question_id để ra chỉ số độ khó / độ phân biệt của câu hỏi trên mọi đề.
+@Entity
+@Data
+@Table(
+    name = "question_item_stats",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"exam_id", "question_id"})
+)
+public class QuestionItemStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "exam_id", nullable = false)
+    private Long examId;
+
+    @Column(name = "question_id", nullable = false)
+    private Long questionId;
+
+    // Số bài làm được phân tích
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "correct_count", nullable = false)
+    private Integer correctCount;
+
+    // Hệ số point-biserial trong đề này
+    @Column(nullable = false)
+    private Double discrimination;
+}
@@ -1,23 +1,38 @@
 package com.capstone.planbookai.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "student_result")
+@Table(name = "student_result", indexes = @Index(name = "idx_student_result_exam_id", columnList = "exam_id, id"))
 public class StudentResult {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(name = "exam_id")
     private Long examId;
     private Long studentId;
     private Double score;
 
+    // Lựa chọn của học sinh theo thứ tự câu trong đề, nén 3 bit/câu (xem ResponseSheetCodec)
+    @JsonIgnore
+    @Column(name = "responses", columnDefinition = "VARBINARY(2048)")
+    private byte[] responses;
+
+    // Số câu được mã hóa trong responses
+    @Column(name = "response_count")
+    private Integer responseCount;
+
     public Long getId() {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public Long getExamId() {
         return examId;
     }
@@ -41,4 +56,20 @@ public class StudentResult {
     public void setScore(Double score) {
         this.score = score;
     }
+
+    public byte[] getResponses() {
+        return responses;
+    }
+
+    public void setResponses(byte[] responses) {
+        this.responses = responses;
+    }
+
+    public Integer getResponseCount() {
+        return responseCount;
+    }
+
+    public void setResponseCount(Integer responseCount) {
+        this.responseCount = responseCount;
+    }
 }
@@ -1,9 +1,11 @@
 package com.capstone.planbookai.entity;
 
+import com.capstone.planbookai.service.ReferenceDataListener;
 import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
+@EntityListeners(ReferenceDataListener.class)
 @Data
 @Table(name = "subjects")
 public class Subject {
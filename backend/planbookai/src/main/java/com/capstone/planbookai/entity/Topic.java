@@ -1,10 +1,15 @@
 package com.capstone.planbookai.entity;
 
+import com.capstone.planbookai.service.ReferenceDataListener;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 
+// @BatchSize: proxy chủ đề của nhiều câu hỏi được nạp chung một câu IN
 @Entity
+@EntityListeners(ReferenceDataListener.class)
 @Data
+@BatchSize(size = 100)
 @Table(name = "topics")
 public class Topic {
 
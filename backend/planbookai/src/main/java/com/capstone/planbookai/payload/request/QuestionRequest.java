@@ -18,6 +18,7 @@ public class QuestionRequest {
 
     @Data
     public static class AnswerDTO {
+        private Long id;          // Khi sửa: id đáp án đã có (không bắt buộc, nếu thiếu thì khớp theo code)
         private String code;      // "A", "B", "C", "D"
         private String content;   // Nội dung câu trả lời
         private Boolean isCorrect; // Frontend gửi trực tiếp true/false vào đây
@@ -0,0 +1,12 @@
+package com.capstone.planbookai.payload.request;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+// Một câu hỏi trong lần sửa hàng loạt (PUT /api/questions/bulk).
+// Trường để null thì giữ nguyên; answers != null thì được đối chiếu với đáp án hiện có theo id/code.
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class QuestionUpdateRequest extends QuestionRequest {
+    private Long id;
+}
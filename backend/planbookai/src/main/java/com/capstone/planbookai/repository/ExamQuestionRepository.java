@@ -1,7 +1,10 @@
 package com.capstone.planbookai.repository;
 
+import com.capstone.planbookai.dto.ExamAnswerRow;
 import com.capstone.planbookai.entity.ExamQuestion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,18 @@ public interface ExamQuestionRepository extends JpaRepository<ExamQuestion, Long
     List<ExamQuestion> findByExamId(Long examId);
     void deleteByExamId(Long examId);
     void deleteByQuestionId(Long questionId);
-}
\ No newline at end of file
+
+    // Toàn bộ câu hỏi + đáp án của một đề trong một câu JOIN, theo thứ tự câu trong đề
+    @Query("SELECT eq.id AS examQuestionId, eq.questionId AS questionId, eq.answerOrder AS answerOrder, " +
+           "q.content AS questionContent, q.level AS level, " +
+           "a.id AS answerId, a.code AS answerCode, a.content AS answerContent, a.isCorrect AS isCorrect " +
+           "FROM ExamQuestion eq JOIN Question q ON q.id = eq.questionId LEFT JOIN q.answers a " +
+           "WHERE eq.examId = :examId ORDER BY eq.id")
+    List<ExamAnswerRow> findAnswerRowsByExamId(@Param("examId") Long examId);
+
+    // [questionId, mã đáp án đúng, answerOrder] theo thứ tự câu trong đề - dùng để dựng ExamAnswerKey
+    @Query("SELECT eq.questionId, a.code, eq.answerOrder FROM ExamQuestion eq " +
+           "LEFT JOIN Answer a ON a.question.id = eq.questionId AND a.isCorrect = true " +
+           "WHERE eq.examId = :examId ORDER BY eq.id")
+    List<Object[]> findCorrectCodesByExamId(@Param("examId") Long examId);
+}
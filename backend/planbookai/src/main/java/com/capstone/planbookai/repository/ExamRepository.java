@@ -1,9 +1,14 @@
 package com.capstone.planbookai.repository;
 
+import com.capstone.planbookai.dto.ExamHeaderRow;
 import com.capstone.planbookai.entity.Exam;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,5 +17,17 @@ public interface ExamRepository extends JpaRepository<Exam, Long> {
 
     Optional<Exam> findByExamCode(String examCode);
 
-    List<Exam> findTop5ByOrderByIdDesc();
+    // Phân trang theo khóa: id < cursor, mới nhất trước; lọc tùy chọn theo chủ đề
+    @Query("SELECT e FROM Exam e WHERE e.id < :cursor AND (:topicId IS NULL OR e.topicId = :topicId) ORDER BY e.id DESC")
+    List<Exam> findPage(@Param("cursor") Long cursor, @Param("topicId") Long topicId, Pageable limit);
+
+    @Query("SELECT e.id AS id, e.topicId AS topicId, t.title AS topicTitle, e.examCode AS examCode, " +
+           "e.examName AS examName, e.duration AS duration " +
+           "FROM Exam e LEFT JOIN Topic t ON t.id = e.topicId WHERE e.id = :examId")
+    Optional<ExamHeaderRow> findHeaderById(@Param("examId") Long examId);
+
+    // Các đề có chứa câu hỏi - dùng để xóa cache khi câu hỏi bị sửa/xóa
+    @Query("SELECT e FROM Exam e WHERE e.id IN " +
+           "(SELECT eq.examId FROM ExamQuestion eq WHERE eq.questionId IN :questionIds)")
+    List<Exam> findExamsContainingQuestions(@Param("questionIds") Collection<Long> questionIds);
 }
\ No newline at end of file
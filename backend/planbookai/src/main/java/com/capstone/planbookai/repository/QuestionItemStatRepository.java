@@ -0,0 +1,24 @@
+package com.capstone.planbookai.repository;
+
+import com.capstone.planbookai.entity.QuestionItemStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QuestionItemStatRepository extends JpaRepository<QuestionItemStat, Long> {
+
+    @Modifying
+    @Query("DELETE FROM QuestionItemStat s WHERE s.examId = :examId")
+    void deleteByExamId(@Param("examId") Long examId);
+
+    // [questionId, tổng số bài, tổng số bài đúng, tổng (discrimination * số bài)] trên mọi đề
+    @Query("SELECT s.questionId, SUM(s.attempts), SUM(s.correctCount), SUM(s.discrimination * s.attempts) " +
+           "FROM QuestionItemStat s WHERE s.questionId IN :questionIds GROUP BY s.questionId")
+    List<Object[]> aggregateByQuestionIds(@Param("questionIds") Collection<Long> questionIds);
+}
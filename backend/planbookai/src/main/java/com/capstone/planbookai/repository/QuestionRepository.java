@@ -2,6 +2,7 @@ package com.capstone.planbookai.repository;
 
 import com.capstone.planbookai.entity.Question;
 import com.capstone.planbookai.entity.QuestionLevel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,10 +13,19 @@ import java.util.List;
 @Repository
 public interface QuestionRepository extends JpaRepository<Question, Long> {
     
-    @Query(value = "SELECT * FROM questions q WHERE q.topic_id = :topicId AND q.level = :level ORDER BY RAND() LIMIT :limit", nativeQuery = true)
-    List<Question> findRandom(@Param("topicId") Long topicId, @Param("level") String level, @Param("limit") int limit);
+    // [id, topicId, level] của mọi câu hỏi - dùng để nạp QuestionSamplingIndex
+    @Query("SELECT q.id, q.topic.id, q.level FROM Question q")
+    List<Object[]> findSamplingKeys();
     
     List<Question> findByTopicIdAndLevel(Long topicId, QuestionLevel level);
 
-    List<Question> findTop5ByOrderByIdDesc();
+    // Phân trang theo khóa: id < cursor, mới nhất trước; lọc tùy chọn theo chủ đề / mức độ.
+    // Topic (kèm môn, khối) được JOIN FETCH; đáp án nạp theo lô nhờ @BatchSize trên Question.answers.
+    @Query("SELECT q FROM Question q JOIN FETCH q.topic t LEFT JOIN FETCH t.subject LEFT JOIN FETCH t.grade " +
+           "WHERE q.id < :cursor AND (:topicId IS NULL OR t.id = :topicId) AND (:level IS NULL OR q.level = :level) " +
+           "ORDER BY q.id DESC")
+    List<Question> findPage(@Param("cursor") Long cursor,
+                            @Param("topicId") Long topicId,
+                            @Param("level") QuestionLevel level,
+                            Pageable limit);
 }
\ No newline at end of file
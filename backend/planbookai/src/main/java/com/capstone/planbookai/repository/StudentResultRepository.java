@@ -1,20 +1,37 @@
 package com.capstone.planbookai.repository;
 
 import com.capstone.planbookai.entity.StudentResult;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface StudentResultRepository extends JpaRepository<StudentResult, Long> {
     
     List<StudentResult> findByExamId(Long examId);
 
-    @Query("SELECT AVG(s.score) FROM StudentResult s WHERE s.examId = :examId")
-    Double getAverageScoreByExamId(@Param("examId") Long examId);
+    // Phân trang theo khóa trong một đề: id < cursor, mới nhất trước (dùng index exam_id, id)
+    List<StudentResult> findByExamIdAndIdLessThanOrderByIdDesc(Long examId, Long cursor, Pageable limit);
 
-    List<StudentResult> findTop5ByOrderByIdDesc();
+    Optional<StudentResult> findFirstByExamIdAndStudentIdOrderByIdDesc(Long examId, Long studentId);
+
+    // [examId, score, số bài] của các bài có id <= maxId - dùng để dựng thống kê cộng dồn cho mọi đề
+    // (bỏ qua kết quả của đề đã xóa)
+    @Query("SELECT s.examId, s.score, COUNT(s) FROM StudentResult s " +
+           "WHERE s.examId IN (SELECT e.id FROM Exam e) AND s.score IS NOT NULL AND s.id <= :maxId " +
+           "GROUP BY s.examId, s.score")
+    List<Object[]> countScoresGroupedByExam(@Param("maxId") Long maxId);
+
+    // [score, số bài] của một đề, chỉ tính các bài có id <= maxId
+    @Query("SELECT s.score, COUNT(s) FROM StudentResult s " +
+           "WHERE s.examId = :examId AND s.score IS NOT NULL AND s.id <= :maxId GROUP BY s.score")
+    List<Object[]> countScoresByExamId(@Param("examId") Long examId, @Param("maxId") Long maxId);
+
+    @Query("SELECT COALESCE(MAX(s.id), 0) FROM StudentResult s")
+    Long findMaxId();
 }
\ No newline at end of file
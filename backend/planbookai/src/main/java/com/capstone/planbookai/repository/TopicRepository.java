@@ -2,8 +2,19 @@ package com.capstone.planbookai.repository;
 
 import com.capstone.planbookai.entity.Topic;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TopicRepository extends JpaRepository<Topic, Long> {
+
+    // Chỉ lấy id - dùng để kiểm tra chủ đề khi import câu hỏi hàng loạt mà không truy vấn từng dòng
+    @Query("SELECT t.id FROM Topic t")
+    List<Long> findAllIds();
+
+    // Toàn bộ chủ đề kèm môn học và khối lớp trong một câu JOIN (dựng ReferenceDataCache)
+    @Query("SELECT t FROM Topic t LEFT JOIN FETCH t.subject LEFT JOIN FETCH t.grade ORDER BY t.id")
+    List<Topic> findAllWithSubjectAndGrade();
 }
@@ -17,9 +17,11 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 
+import com.capstone.planbookai.controller.AiController;
 import com.capstone.planbookai.security.jwt.AuthTokenFilter;
 import com.capstone.planbookai.security.services.UserDetailsServiceImpl;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 
 @Configuration
@@ -61,6 +63,8 @@ public class SecurityConfig {
                 config.setAllowedOrigins(List.of("*"));
                 config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
                 config.setAllowedHeaders(List.of("*"));
+                // Cho phép frontend đọc header cảnh báo câu hỏi AI gần trùng
+                config.setExposedHeaders(List.of(AiController.SIMILAR_HEADER));
                 return config;
             }))
             .exceptionHandling(ex -> ex.authenticationEntryPoint(
@@ -71,6 +75,9 @@ public class SecurityConfig {
                 sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .authorizeHttpRequests(auth -> auth
+                // Lượt dispatch ASYNC (SSE, StreamingResponseBody) thuộc request đã được xác thực ở lượt đầu;
+                // JWT không lưu vào session nên lượt này không có SecurityContext
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers(
                     "/",                // 🔥 FIX
                     "/error",            // 🔥 FIX
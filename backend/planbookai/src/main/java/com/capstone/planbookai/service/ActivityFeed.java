@@ -0,0 +1,193 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.ActivityEvent;
+import com.capstone.planbookai.service.search.HtmlText;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Luồng hoạt động gần đây của dashboard: vòng đệm (ring buffer) cố định trong bộ nhớ, chỉ ghi thêm, không khóa.
+// - Ghi: lấy số thứ tự bằng AtomicLong rồi đặt vào ô seq % capacity (ghi đè sự kiện cũ nhất).
+// - Đọc: đi lùi từ số thứ tự mới nhất, bỏ ô đã bị ghi đè hoặc chưa ghi xong (seq trong ô không khớp).
+// - Sự kiện được đẩy qua SSE tới các dashboard đang mở; JSON của mỗi sự kiện chỉ tạo một lần.
+// Sự kiện chỉ được ghi sau khi transaction commit; không lưu DB nên danh sách rỗng sau khi khởi động lại.
+@Component
+public class ActivityFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityFeed.class);
+
+    private static final int SUMMARY_LENGTH = 50;
+
+    private static final class Entry {
+        final ActivityEvent event;
+        final String json;
+
+        Entry(ActivityEvent event, String json) {
+            this.event = event;
+            this.json = json;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final AtomicReferenceArray<Entry> ring;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+    private final long streamTimeoutMs;
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    // Một luồng đẩy duy nhất: client chậm không làm chậm request đang ghi sự kiện.
+    // Hàng đợi 1 chỗ, bỏ tác vụ thừa: lượt đẩy kế tiếp tự đọc mọi sự kiện mới từ vòng đệm.
+    private final ThreadPoolExecutor pusher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), r -> new Thread(r, "activity-push"), new ThreadPoolExecutor.DiscardPolicy());
+    private long pushedUpTo; // chỉ luồng đẩy đọc/ghi
+
+    public ActivityFeed(
+            ObjectMapper objectMapper,
+            @Value("${planbookai.dashboard.activity.capacity:64}") int capacity,
+            @Value("${planbookai.dashboard.activity.stream-timeout-ms:1800000}") long streamTimeoutMs) {
+        this.objectMapper = objectMapper;
+        int size = Integer.highestOneBit(Math.max(8, capacity) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.streamTimeoutMs = streamTimeoutMs;
+    }
+
+    // Ghi sự kiện sau khi transaction hiện tại commit
+    public void publishAfterCommit(ActivityEvent.Type type, Long id, String title, String description, String time) {
+        AfterCommit.run(() -> publish(type, id, title, description, time));
+    }
+
+    public void publish(ActivityEvent.Type type, Long id, String title, String description, String time) {
+        long seq = sequence.incrementAndGet();
+        ActivityEvent event = new ActivityEvent(seq, id, type, title, description, time, System.currentTimeMillis());
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.warn("Không ghi được sự kiện hoạt động {}", seq, e);
+            return;
+        }
+        ring.set((int) (seq & mask), new Entry(event, json));
+        pusher.execute(this::push);
+    }
+
+    // Tối đa limit sự kiện mới nhất, mới trước
+    public List<ActivityEvent> recent(int limit) {
+        List<ActivityEvent> events = new ArrayList<>(Math.min(limit, mask + 1));
+        long newest = sequence.get();
+        for (long seq = newest; seq > 0 && seq > newest - ring.length() && events.size() < limit; seq--) {
+            Entry entry = ring.get((int) (seq & mask));
+            if (entry != null && entry.event.getSeq() == seq) {
+                events.add(entry.event);
+            }
+        }
+        return events;
+    }
+
+    // lastEventId (header Last-Event-ID khi trình duyệt tự kết nối lại): gửi bù các sự kiện còn trong vòng đệm
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        if (lastEventId != null) {
+            long newest = sequence.get();
+            long from = Math.max(lastEventId + 1, newest - ring.length() + 1);
+            for (long seq = from; seq <= newest; seq++) {
+                Entry entry = ring.get((int) (seq & mask));
+                if (entry != null && entry.event.getSeq() == seq && !send(emitter, entry)) {
+                    break;
+                }
+            }
+        }
+        return emitter;
+    }
+
+    // Giữ kết nối qua proxy và phát hiện client đã đóng tab
+    @Scheduled(fixedDelayString = "${planbookai.dashboard.activity.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                drop(emitter, e);
+            }
+        }
+    }
+
+    private void push() {
+        long newest = sequence.get();
+        long from = Math.max(pushedUpTo + 1, newest - ring.length() + 1);
+        for (long seq = from; seq <= newest; seq++) {
+            Entry entry = ring.get((int) (seq & mask));
+            // Ô chưa ghi xong (publish song song): dừng, lượt đẩy do publish đó gọi sẽ gửi tiếp
+            if (entry == null || entry.event.getSeq() != seq) {
+                if (entry == null || entry.event.getSeq() < seq) {
+                    return;
+                }
+                continue;
+            }
+            // Không có ai nghe vẫn đánh dấu đã đẩy: người kết nối sau không nhận lại sự kiện cũ
+            for (SseEmitter emitter : subscribers) {
+                send(emitter, entry);
+            }
+            pushedUpTo = seq;
+        }
+    }
+
+    private boolean send(SseEmitter emitter, Entry entry) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(entry.event.getSeq()))
+                    .name("activity")
+                    .data(entry.json, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            drop(emitter, e);
+            return false;
+        }
+    }
+
+    private void drop(SseEmitter emitter, Exception e) {
+        subscribers.remove(emitter);
+        emitter.completeWithError(e);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pusher.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+        subscribers.clear();
+    }
+
+    // Tóm tắt văn bản thuần từ nội dung HTML, cắt còn SUMMARY_LENGTH ký tự
+    public static String summarize(String html) {
+        if (html == null) {
+            return "";
+        }
+        String text = HtmlText.strip(html).replaceAll("\\s+", " ").trim();
+        return text.length() > SUMMARY_LENGTH ? text.substring(0, SUMMARY_LENGTH) + "..." : text;
+    }
+}
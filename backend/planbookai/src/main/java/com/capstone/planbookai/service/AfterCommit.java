@@ -0,0 +1,26 @@
+package com.capstone.planbookai.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Chạy một tác vụ sau khi transaction hiện tại commit thành công
+// (nếu không có transaction thì chạy ngay). Dùng để cập nhật các chỉ mục trong bộ nhớ
+// sao cho chúng không bao giờ nhìn thấy dữ liệu bị rollback.
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+}
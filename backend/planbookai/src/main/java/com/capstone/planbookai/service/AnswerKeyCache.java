@@ -0,0 +1,113 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.repository.ExamQuestionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cache đáp án theo đề: tính một lần bằng một câu truy vấn, sau đó chấm bài hoàn toàn trong bộ nhớ.
+// - Giới hạn số đề (max-entries), loại bỏ đề ít dùng nhất (LRU) như ExamSnapshotCache.
+// - Single-flight: truy vấn chạy ngoài mọi khóa; các request cùng đề chờ chung một future.
+// - Bị xóa khi xóa đề hoặc khi câu hỏi thuộc đề bị sửa/xóa.
+@Component
+public class AnswerKeyCache {
+
+    private final ExamQuestionRepository examQuestionRepository;
+    private final int maxEntries;
+
+    // accessOrder = true -> thứ tự LRU; truy cập trong synchronized (this)
+    private final LinkedHashMap<Long, ExamAnswerKey> keys = new LinkedHashMap<>(16, 0.75f, true);
+    // Lượt nạp đang chạy theo đề; chỉ lưu kết quả nếu lúc lưu nó vẫn là lượt nạp hiện hành (chưa bị invalidate)
+    private final Map<Long, CompletableFuture<ExamAnswerKey>> inFlight = new ConcurrentHashMap<>();
+
+    public AnswerKeyCache(
+            ExamQuestionRepository examQuestionRepository,
+            @Value("${planbookai.cache.answer-key.max-entries:10000}") int maxEntries) {
+        this.examQuestionRepository = examQuestionRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    public ExamAnswerKey get(Long examId) {
+        synchronized (this) {
+            ExamAnswerKey cached = keys.get(examId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        CompletableFuture<ExamAnswerKey> mine = new CompletableFuture<>();
+        CompletableFuture<ExamAnswerKey> existing = inFlight.putIfAbsent(examId, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            ExamAnswerKey key = load(examId);
+            synchronized (this) {
+                if (inFlight.get(examId) == mine) {
+                    keys.put(examId, key);
+                    Iterator<Long> it = keys.keySet().iterator();
+                    while (keys.size() > maxEntries && it.hasNext()) {
+                        it.next();
+                        it.remove();
+                    }
+                }
+            }
+            mine.complete(key);
+            return key;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(examId, mine);
+        }
+    }
+
+    public void invalidate(Long examId) {
+        synchronized (this) {
+            inFlight.remove(examId);
+            keys.remove(examId);
+        }
+    }
+
+    private static ExamAnswerKey await(CompletableFuture<ExamAnswerKey> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private ExamAnswerKey load(Long examId) {
+        // Mỗi dòng: [questionId, mã đáp án đúng hoặc null, answerOrder], theo thứ tự câu trong đề
+        List<Object[]> rows = examQuestionRepository.findCorrectCodesByExamId(examId);
+        long[] questionIds = new long[rows.size()];
+        byte[] correctCodes = new byte[rows.size()];
+        byte[][] displayOrders = new byte[rows.size()][];
+        int n = 0;
+        for (Object[] row : rows) {
+            long questionId = (Long) row[0];
+            byte code = ExamAnswerKey.codeIndex((String) row[1]);
+            // Câu có nhiều đáp án đúng sẽ xuất hiện nhiều dòng liền nhau: giữ đáp án đầu tiên
+            if (n > 0 && questionIds[n - 1] == questionId) {
+                continue;
+            }
+            questionIds[n] = questionId;
+            correctCodes[n] = code;
+            displayOrders[n] = ExamAnswerKey.parseOrder((String) row[2]);
+            n++;
+        }
+        return new ExamAnswerKey(
+                Arrays.copyOf(questionIds, n), Arrays.copyOf(correctCodes, n), Arrays.copyOf(displayOrders, n));
+    }
+}
@@ -0,0 +1,196 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.BulkSubmitResult;
+import com.capstone.planbookai.dto.SubmitExamRequest;
+import com.capstone.planbookai.entity.StudentResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Chấm hàng loạt bài nộp từ một mảng JSON rất lớn (VD: file của hệ thống đối tác).
+// Đọc từng phần tử bằng streaming parser, chấm song song theo từng khúc trên thread pool có giới hạn,
+// ghi mỗi khúc bằng một batch JDBC rồi ghi ngay kết quả của khúc đó ra response.
+// Bộ nhớ chỉ phụ thuộc kích thước khúc, không phụ thuộc kích thước file.
+@Service
+public class BulkSubmissionService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final ExamService examService;
+    private final StudentResultBatchWriter batchWriter;
+    private final ObjectMapper objectMapper;
+    private final ExamStatisticsAggregator statisticsAggregator;
+    private final ExecutorService gradingExecutor;
+
+    public BulkSubmissionService(
+            ExamService examService,
+            StudentResultBatchWriter batchWriter,
+            ObjectMapper objectMapper,
+            ExamStatisticsAggregator statisticsAggregator,
+            @Value("${planbookai.results.bulk.grading-threads:4}") int gradingThreads
+    ) {
+        this.examService = examService;
+        this.batchWriter = batchWriter;
+        this.objectMapper = objectMapper;
+        this.statisticsAggregator = statisticsAggregator;
+        // Hàng đợi có giới hạn; khi đầy thì luồng gọi tự chấm (CallerRunsPolicy) để tự điều tiết
+        this.gradingExecutor = new ThreadPoolExecutor(
+                gradingThreads, gradingThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(CHUNK_SIZE),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Một phần tử của mảng gửi lên: bài nộp đọc được, hoặc lỗi của riêng phần tử đó
+    private static final class Item {
+        final SubmitExamRequest request;
+        final String error;
+
+        Item(SubmitExamRequest request, String error) {
+            this.request = request;
+            this.error = error;
+        }
+    }
+
+    public void gradeAll(InputStream in, OutputStream out) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Dữ liệu phải là một mảng JSON các bài nộp");
+        }
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.writeStartArray();
+
+        List<Item> chunk = new ArrayList<>(CHUNK_SIZE);
+        int index = 0;
+        String fatal = null;
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    fatal = "Dữ liệu kết thúc khi mảng chưa đóng";
+                    break;
+                }
+                chunk.add(readItem(parser, token));
+                if (chunk.size() == CHUNK_SIZE) {
+                    index = processChunk(chunk, index, generator);
+                    chunk.clear();
+                }
+            }
+            if (fatal == null && parser.nextToken() != null) {
+                fatal = "Có dữ liệu thừa sau mảng bài nộp";
+            }
+        } catch (JsonProcessingException e) {
+            // Hỏng cấu trúc JSON: không đọc tiếp được
+            fatal = "Dữ liệu bị lỗi từ đây, dừng chấm: " + e.getOriginalMessage();
+        }
+        if (!chunk.isEmpty()) {
+            index = processChunk(chunk, index, generator);
+        }
+        if (fatal != null) {
+            // Báo lỗi bằng một phần tử cuối, vẫn đóng mảng để response là JSON hợp lệ
+            BulkSubmitResult summary = new BulkSubmitResult();
+            summary.index = index;
+            summary.error = fatal;
+            objectMapper.writeValue(generator, summary);
+        }
+
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    // Đọc trọn phần tử thành cây trước: lỗi ánh xạ kiểu chỉ ảnh hưởng phần tử đó, parser vẫn ở đúng vị trí
+    private Item readItem(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            String found = token == JsonToken.START_ARRAY ? "mảng" : parser.getText();
+            parser.skipChildren();
+            return new Item(null, "Phần tử không phải object bài nộp: " + found);
+        }
+        JsonNode node = objectMapper.readTree(parser);
+        try {
+            return new Item(objectMapper.treeToValue(node, SubmitExamRequest.class), null);
+        } catch (JsonProcessingException e) {
+            return new Item(null, "Bài nộp không hợp lệ: " + e.getOriginalMessage());
+        }
+    }
+
+    // Chấm song song một khúc, lưu các bài hợp lệ bằng một batch, ghi kết quả theo đúng thứ tự gửi lên
+    private int processChunk(List<Item> chunk, int startIndex, JsonGenerator generator) throws IOException {
+        List<Future<StudentResult>> futures = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            SubmitExamRequest req = item.request;
+            futures.add(req != null ? gradingExecutor.submit(() -> grade(req)) : null);
+        }
+
+        List<BulkSubmitResult> summaries = new ArrayList<>(chunk.size());
+        List<StudentResult> graded = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Item item = chunk.get(i);
+            BulkSubmitResult summary = new BulkSubmitResult();
+            summary.index = startIndex + i;
+            summaries.add(summary);
+            if (item.request == null) {
+                summary.error = item.error;
+                continue;
+            }
+            summary.examId = item.request.getExamId();
+            summary.studentId = item.request.getStudentId();
+            try {
+                StudentResult result = futures.get(i).get();
+                summary.score = result.getScore();
+                graded.add(result);
+            } catch (ExecutionException e) {
+                summary.error = e.getCause().getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Bị ngắt khi đang chấm bài", e);
+            }
+        }
+
+        try {
+            batchWriter.insertAll(graded);
+            for (StudentResult result : graded) {
+                statisticsAggregator.record(result);
+            }
+        } catch (RuntimeException e) {
+            for (BulkSubmitResult summary : summaries) {
+                if (summary.error == null) {
+                    summary.error = "Không lưu được kết quả: " + e.getMessage();
+                }
+            }
+        }
+
+        for (BulkSubmitResult summary : summaries) {
+            objectMapper.writeValue(generator, summary);
+        }
+        generator.flush();
+        return startIndex + chunk.size();
+    }
+
+    private StudentResult grade(SubmitExamRequest req) {
+        if (req.getExamId() == null || req.getStudentId() == null || req.getAnswers() == null) {
+            throw new IllegalArgumentException("Thiếu examId, studentId hoặc answers");
+        }
+        if (examService.getAnswerKey(req.getExamId()).size() == 0) {
+            throw new IllegalArgumentException("Đề thi không tồn tại hoặc không có câu hỏi: " + req.getExamId());
+        }
+        return examService.gradeSubmission(req);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        gradingExecutor.shutdown();
+    }
+}
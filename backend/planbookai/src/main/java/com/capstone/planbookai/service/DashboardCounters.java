@@ -0,0 +1,87 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.repository.ExamRepository;
+import com.capstone.planbookai.repository.QuestionRepository;
+import com.capstone.planbookai.repository.StudentResultRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Bộ đếm tổng số câu hỏi / đề thi / kết quả cho dashboard, giữ trong bộ nhớ (LongAdder: nhiều luồng
+// cộng đồng thời không tranh chấp). Được cộng/trừ sau khi transaction tạo/xóa commit, và định kỳ
+// đối chiếu lại với COUNT(*) trong DB ở luồng nền để sửa sai lệch (VD: dữ liệu sửa trực tiếp bằng SQL).
+@Component
+public class DashboardCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardCounters.class);
+
+    private final QuestionRepository questionRepo;
+    private final ExamRepository examRepo;
+    private final StudentResultRepository resultRepo;
+
+    private final LongAdder questions = new LongAdder();
+    private final LongAdder exams = new LongAdder();
+    private final LongAdder results = new LongAdder();
+
+    public DashboardCounters(QuestionRepository questionRepo, ExamRepository examRepo,
+                             StudentResultRepository resultRepo) {
+        this.questionRepo = questionRepo;
+        this.examRepo = examRepo;
+        this.resultRepo = resultRepo;
+    }
+
+    public long questions() {
+        return questions.sum();
+    }
+
+    public long exams() {
+        return exams.sum();
+    }
+
+    public long results() {
+        return results.sum();
+    }
+
+    public void questionsChanged(long delta) {
+        AfterCommit.run(() -> questions.add(delta));
+    }
+
+    public void examsChanged(long delta) {
+        AfterCommit.run(() -> exams.add(delta));
+    }
+
+    public void resultsChanged(long delta) {
+        AfterCommit.run(() -> results.add(delta));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+    }
+
+    // Cộng phần chênh lệch thay vì gán: thay đổi xảy ra trong lúc đếm không bị ghi đè mất.
+    // Thay đổi commit đúng lúc COUNT đang chạy có thể bị tính hai lần - lần đối chiếu sau sẽ sửa.
+    @Scheduled(fixedDelayString = "${planbookai.dashboard.reconcile-interval-ms:600000}",
+            initialDelayString = "${planbookai.dashboard.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        reconcile("questions", questions, questionRepo::count);
+        reconcile("exams", exams, examRepo::count);
+        reconcile("student_result", results, resultRepo::count);
+    }
+
+    private static void reconcile(String table, LongAdder counter, LongSupplier count) {
+        long before = counter.sum();
+        long actual = count.getAsLong();
+        long drift = actual - before;
+        if (drift != 0) {
+            counter.add(drift);
+            log.debug("Đối chiếu bộ đếm {}: lệch {}", table, drift);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.SimilarQuestionResponse;
+
+// Câu hỏi sắp tạo gần trùng câu đã có - controller trả 409 kèm danh sách câu trùng
+public class DuplicateQuestionException extends RuntimeException {
+
+    private final SimilarQuestionResponse similar;
+
+    public DuplicateQuestionException(SimilarQuestionResponse similar) {
+        super("Câu hỏi gần trùng với " + similar.items.size() + " câu đã có trong ngân hàng");
+        this.similar = similar;
+    }
+
+    public SimilarQuestionResponse getSimilar() {
+        return similar;
+    }
+}
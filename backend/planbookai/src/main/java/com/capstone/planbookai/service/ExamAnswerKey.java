@@ -0,0 +1,139 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.SubmitExamRequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Đáp án của một đề ở dạng mảng nguyên thủy, đánh chỉ số theo vị trí câu trong đề.
+// correctCodes[i] = chỉ số mã đáp án đúng của câu thứ i (A=0, B=1, ...), NO_CODE nếu câu không có đáp án đúng.
+// displayOrders[i][k] = mã đáp án gốc được in ở ô thứ k của câu i (theo answerOrder đã trộn).
+// Bất biến sau khi tạo nên dùng chung an toàn giữa các luồng chấm bài.
+public final class ExamAnswerKey {
+
+    public static final byte NO_CODE = -1;
+
+    private final long[] questionIds;   // theo thứ tự câu trong đề
+    private final byte[] correctCodes;  // theo thứ tự câu trong đề
+    private final byte[][] displayOrders;
+    private final long[] sortedIds;     // questionIds đã sắp xếp, để tìm vị trí bằng binary search
+    private final int[] sortedPositions;
+
+    public ExamAnswerKey(long[] questionIds, byte[] correctCodes, byte[][] displayOrders) {
+        this.questionIds = questionIds;
+        this.correctCodes = correctCodes;
+        this.displayOrders = displayOrders;
+
+        Integer[] order = new Integer[questionIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(questionIds[a], questionIds[b]));
+        this.sortedIds = new long[order.length];
+        this.sortedPositions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = questionIds[order[i]];
+            sortedPositions[i] = order[i];
+        }
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    public long questionIdAt(int position) {
+        return questionIds[position];
+    }
+
+    public byte correctCodeAt(int position) {
+        return correctCodes[position];
+    }
+
+    // Số phương án nhiều nhất của một câu trong đề (số ô cần in trên phiếu trả lời)
+    public int maxOptions() {
+        int max = 0;
+        for (byte[] order : displayOrders) {
+            max = Math.max(max, order.length);
+        }
+        return max;
+    }
+
+    // Đổi vị trí ô được tô trên phiếu (0 = ô đầu tiên) sang mã đáp án gốc.
+    // Giữ nguyên BLANK/INVALID; ô không có phương án tương ứng -> INVALID.
+    public byte[] fromSheetPositions(byte[] marked) {
+        byte[] selections = new byte[questionIds.length];
+        for (int i = 0; i < selections.length; i++) {
+            byte k = i < marked.length ? marked[i] : ResponseSheetCodec.BLANK;
+            if (k < 0) {
+                selections[i] = k;
+            } else {
+                selections[i] = k < displayOrders[i].length ? displayOrders[i][k] : ResponseSheetCodec.INVALID;
+            }
+        }
+        return selections;
+    }
+
+    // Vị trí của câu hỏi trong đề, -1 nếu câu không thuộc đề
+    public int positionOf(Long questionId) {
+        if (questionId == null) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(sortedIds, questionId);
+        return i >= 0 ? sortedPositions[i] : -1;
+    }
+
+    // Đếm số câu đúng - chỉ so sánh trong bộ nhớ, không truy vấn DB
+    public int countCorrect(List<SubmitExamRequest.AnswerSubmit> answers) {
+        return countCorrect(toSelections(answers));
+    }
+
+    public int countCorrect(byte[] selections) {
+        int correct = 0;
+        int n = Math.min(selections.length, correctCodes.length);
+        for (int i = 0; i < n; i++) {
+            if (correctCodes[i] != NO_CODE && correctCodes[i] == selections[i]) {
+                correct++;
+            }
+        }
+        return correct;
+    }
+
+    // Lựa chọn của học sinh theo thứ tự câu trong đề (NO_CODE nếu bỏ trống); câu không thuộc đề bị bỏ qua
+    public byte[] toSelections(List<SubmitExamRequest.AnswerSubmit> answers) {
+        byte[] selections = new byte[questionIds.length];
+        Arrays.fill(selections, NO_CODE);
+        for (SubmitExamRequest.AnswerSubmit a : answers) {
+            int pos = positionOf(a.getQuestionId());
+            if (pos >= 0) {
+                selections[pos] = codeIndex(a.getSelectedCode());
+            }
+        }
+        return selections;
+    }
+
+    // "A" -> 0, "B" -> 1, ... ; mã rỗng hoặc không hợp lệ -> NO_CODE
+    public static byte codeIndex(String code) {
+        if (code == null || code.length() != 1) {
+            return NO_CODE;
+        }
+        char c = Character.toUpperCase(code.charAt(0));
+        return c >= 'A' && c <= 'Z' ? (byte) (c - 'A') : NO_CODE;
+    }
+
+    // "B,A,D,C" -> [1, 0, 3, 2]
+    public static byte[] parseOrder(String answerOrder) {
+        if (answerOrder == null || answerOrder.isBlank()) {
+            return new byte[0];
+        }
+        String[] codes = answerOrder.split(",");
+        byte[] order = new byte[codes.length];
+        for (int k = 0; k < codes.length; k++) {
+            order[k] = codeIndex(codes[k].trim());
+        }
+        return order;
+    }
+
+    public static String codeOf(int index) {
+        return index >= 0 && index < 26 ? String.valueOf((char) ('A' + index)) : null;
+    }
+}
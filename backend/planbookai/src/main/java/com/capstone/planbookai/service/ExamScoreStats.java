@@ -0,0 +1,89 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.ExamStatisticsResponse;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Thống kê điểm cộng dồn của một đề: cập nhật O(1) mỗi lần nộp bài, đọc O(1).
+// Kèm ScoreQuantileSketch để trả trung vị, P10/P25/P75/P90 và thứ hạng phần trăm.
+public class ExamScoreStats {
+
+    // Các khoảng điểm của biểu đồ phân bố: [0,2) [2,4) [4,6) [6,8) [8,10]
+    private static final String[] BUCKET_LABELS = {"0-2", "2-4", "4-6", "6-8", "8-10"};
+
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final long[] buckets = new long[BUCKET_LABELS.length];
+    private final ScoreQuantileSketch sketch = new ScoreQuantileSketch();
+
+    public synchronized void record(double score) {
+        record(score, 1);
+    }
+
+    // Ghi nhận "times" bài có cùng điểm (dùng khi dựng lại từ truy vấn GROUP BY score)
+    public synchronized void record(double score, long times) {
+        count += times;
+        sum += score * times;
+        sumOfSquares += score * score * times;
+        min = Math.min(min, score);
+        max = Math.max(max, score);
+        buckets[bucketOf(score)] += times;
+        sketch.add(score, times);
+    }
+
+    public synchronized double percentileRank(double score) {
+        return sketch.percentileRank(score);
+    }
+
+    public synchronized ExamStatisticsResponse toResponse(Long examId) {
+        ExamStatisticsResponse stats = new ExamStatisticsResponse();
+        stats.setExamId(examId);
+        stats.setTotalStudents((int) count);
+        stats.setQuantileErrorBound(ScoreQuantileSketch.ERROR_BOUND);
+
+        if (count == 0) {
+            stats.setAverageScore(0.0);
+            stats.setMaxScore(0.0);
+            stats.setMinScore(0.0);
+            stats.setStandardDeviation(0.0);
+            stats.setMedianScore(0.0);
+            stats.setP10Score(0.0);
+            stats.setP25Score(0.0);
+            stats.setP75Score(0.0);
+            stats.setP90Score(0.0);
+            stats.setScoreDistribution(new HashMap<>());
+            return stats;
+        }
+
+        double mean = sum / count;
+        stats.setAverageScore(mean);
+        stats.setMaxScore(max);
+        stats.setMinScore(min);
+        stats.setStandardDeviation(Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean)));
+        stats.setMedianScore(sketch.quantile(0.5));
+        stats.setP10Score(sketch.quantile(0.1));
+        stats.setP25Score(sketch.quantile(0.25));
+        stats.setP75Score(sketch.quantile(0.75));
+        stats.setP90Score(sketch.quantile(0.9));
+
+        Map<String, Integer> distribution = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            distribution.put(BUCKET_LABELS[i], (int) buckets[i]);
+        }
+        stats.setScoreDistribution(distribution);
+        return stats;
+    }
+
+    private static int bucketOf(double score) {
+        if (score < 2) return 0;
+        if (score < 4) return 1;
+        if (score < 6) return 2;
+        if (score < 8) return 3;
+        return 4;
+    }
+}
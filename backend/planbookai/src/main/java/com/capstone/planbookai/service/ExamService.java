@@ -3,78 +3,147 @@ package com.capstone.planbookai.service;
 import com.capstone.planbookai.dto.*;
 import com.capstone.planbookai.entity.*;
 import com.capstone.planbookai.repository.*;
+import com.capstone.planbookai.service.omr.OmrSheetLayout;
+import com.capstone.planbookai.service.omr.OmrSheetRecognizer;
+import com.capstone.planbookai.service.omr.OmrSheetRenderer;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class ExamService {
 
+    private static final int MAX_VARIANTS = 20;
+    private static final int MAX_SHUFFLE_ATTEMPTS = 10;
+
     private final ExamRepository examRepo;
     private final ExamQuestionRepository examQuestionRepo;
     private final QuestionRepository questionRepo;
-    private final AnswerRepository answerRepo;
     private final StudentResultRepository studentResultRepo;
-    private final TopicRepository topicRepo; // Thêm để lấy tên chủ đề nếu cần
+    private final QuestionSamplingIndex samplingIndex;
+    private final ExamSnapshotCache snapshotCache;
+    private final AnswerKeyCache answerKeyCache;
+    private final StudentResultWriteBehind resultWriteBehind;
+    private final ExamStatisticsAggregator statisticsAggregator;
+    private final DashboardCounters dashboardCounters;
+    private final ActivityFeed activityFeed;
 
     public ExamService(
             ExamRepository examRepo,
             ExamQuestionRepository examQuestionRepo,
             QuestionRepository questionRepo,
-            AnswerRepository answerRepo,
             StudentResultRepository studentResultRepo,
-            TopicRepository topicRepo
+            QuestionSamplingIndex samplingIndex,
+            ExamSnapshotCache snapshotCache,
+            AnswerKeyCache answerKeyCache,
+            StudentResultWriteBehind resultWriteBehind,
+            ExamStatisticsAggregator statisticsAggregator,
+            DashboardCounters dashboardCounters,
+            ActivityFeed activityFeed
     ) {
         this.examRepo = examRepo;
         this.examQuestionRepo = examQuestionRepo;
         this.questionRepo = questionRepo;
-        this.answerRepo = answerRepo;
         this.studentResultRepo = studentResultRepo;
-        this.topicRepo = topicRepo;
+        this.samplingIndex = samplingIndex;
+        this.snapshotCache = snapshotCache;
+        this.answerKeyCache = answerKeyCache;
+        this.resultWriteBehind = resultWriteBehind;
+        this.statisticsAggregator = statisticsAggregator;
+        this.dashboardCounters = dashboardCounters;
+        this.activityFeed = activityFeed;
     }
 
     // --- 1. TẠO ĐỀ THI TỰ ĐỘNG ---
+    // Chỉ tạo một đề: yêu cầu nhiều mã đề bị từ chối (400) thay vì âm thầm trả về một đề
     @Transactional
     public Exam generateExam(GenerateExamRequest req) {
-        // Lấy câu hỏi ngẫu nhiên từ ngân hàng
-        List<Question> questions = new ArrayList<>();
-        questions.addAll(questionRepo.findRandom(req.getTopicId(), "EASY", req.getEasy()));
-        questions.addAll(questionRepo.findRandom(req.getTopicId(), "MEDIUM", req.getMedium()));
-        questions.addAll(questionRepo.findRandom(req.getTopicId(), "HARD", req.getHard()));
-
-        // Trộn ngẫu nhiên thứ tự câu hỏi
-        Collections.shuffle(questions);
-
-        // Tạo đối tượng Exam
-        Exam exam = new Exam();
-        exam.setTopicId(req.getTopicId());
-        
-        // LƯU QUAN TRỌNG: Tên đề và Thời gian
-        exam.setExamName(req.getExamName());
-        exam.setDuration(req.getDuration());
-        
-        // Tạo mã đề ngẫu nhiên (8 ký tự)
-        exam.setExamCode(UUID.randomUUID().toString().substring(0, 8).toUpperCase());
-        
-        exam = examRepo.save(exam);
-
-        // Lưu danh sách câu hỏi vào bảng trung gian
-        for (Question q : questions) {
-            // Trộn thứ tự đáp án (A, B, C, D)
-            List<String> order = new ArrayList<>(List.of("A", "B", "C", "D"));
-            Collections.shuffle(order);
-
-            ExamQuestion eq = new ExamQuestion();
-            eq.setExamId(exam.getId());
-            eq.setQuestionId(q.getId());
-            eq.setAnswerOrder(String.join(",", order));
-            examQuestionRepo.save(eq);
+        if (req.getVariants() != null && req.getVariants() > 1) {
+            throw new IllegalArgumentException("Tạo nhiều mã đề dùng POST /api/exams/generate/variants");
         }
+        return createVariants(req, 1).get(0);
+    }
 
-        return exam;
+    // --- 1b. TẠO NHIỀU MÃ ĐỀ CÙNG LÚC ---
+    // Một bộ câu hỏi được lấy một lần, mỗi mã đề có thứ tự câu hỏi và đáp án riêng
+    @Transactional
+    public List<Exam> generateExamVariants(GenerateExamRequest req) {
+        int variants = req.getVariants() != null ? req.getVariants() : 1;
+        if (variants < 1 || variants > MAX_VARIANTS) {
+            throw new IllegalArgumentException("Số mã đề phải từ 1 đến " + MAX_VARIANTS);
+        }
+        return createVariants(req, variants);
+    }
+
+    private List<Exam> createVariants(GenerateExamRequest req, int variantCount) {
+        // Lấy ngẫu nhiên ID câu hỏi từ chỉ mục trong bộ nhớ, rồi chỉ nạp đúng các dòng đó theo khóa chính
+        List<Long> questionIds = new ArrayList<>();
+        questionIds.addAll(samplingIndex.sample(req.getTopicId(), QuestionLevel.EASY, req.getEasy()));
+        questionIds.addAll(samplingIndex.sample(req.getTopicId(), QuestionLevel.MEDIUM, req.getMedium()));
+        questionIds.addAll(samplingIndex.sample(req.getTopicId(), QuestionLevel.HARD, req.getHard()));
+        List<Question> questions = questionRepo.findAllById(questionIds);
+
+        // Tạo các đối tượng Exam (ID lấy từ sequence nên saveAll được gom batch)
+        Set<String> codes = new HashSet<>();
+        List<Exam> exams = new ArrayList<>(variantCount);
+        for (int i = 0; i < variantCount; i++) {
+            Exam exam = new Exam();
+            exam.setTopicId(req.getTopicId());
+
+            // LƯU QUAN TRỌNG: Tên đề và Thời gian
+            exam.setExamName(req.getExamName());
+            exam.setDuration(req.getDuration());
+
+            // Tạo mã đề ngẫu nhiên (8 ký tự), không trùng giữa các mã đề trong cùng lần tạo
+            String code;
+            do {
+                code = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            } while (!codes.add(code));
+            exam.setExamCode(code);
+            exams.add(exam);
+        }
+        exams = examRepo.saveAll(exams);
+        dashboardCounters.examsChanged(exams.size());
+        for (Exam exam : exams) {
+            activityFeed.publishAfterCommit(ActivityEvent.Type.EXAM, exam.getId(), "Đề thi mới được tạo",
+                    exam.getExamName() + " (" + exam.getExamCode() + ")", "Mới tạo");
+        }
+
+        // Lưu danh sách câu hỏi vào bảng trung gian (saveAll -> INSERT theo batch JDBC)
+        List<ExamQuestion> examQuestions = new ArrayList<>(questions.size() * variantCount);
+        Set<List<Long>> usedOrders = new HashSet<>();
+        for (Exam exam : exams) {
+            // Trộn ngẫu nhiên thứ tự câu hỏi, thử lại vài lần để các mã đề không trùng thứ tự
+            List<Question> shuffled = new ArrayList<>(questions);
+            for (int attempt = 0; attempt < MAX_SHUFFLE_ATTEMPTS; attempt++) {
+                Collections.shuffle(shuffled);
+                if (usedOrders.add(shuffled.stream().map(Question::getId).collect(Collectors.toList()))) {
+                    break;
+                }
+            }
+
+            for (Question q : shuffled) {
+                // Trộn thứ tự đáp án (A, B, C, D)
+                List<String> order = new ArrayList<>(List.of("A", "B", "C", "D"));
+                Collections.shuffle(order);
+
+                ExamQuestion eq = new ExamQuestion();
+                eq.setExamId(exam.getId());
+                eq.setQuestionId(q.getId());
+                eq.setAnswerOrder(String.join(",", order));
+                examQuestions.add(eq);
+            }
+        }
+        examQuestionRepo.saveAll(examQuestions);
+
+        return exams;
     }
 
     // --- 2. LẤY TẤT CẢ ĐỀ THI ---
@@ -82,21 +151,25 @@ public class ExamService {
         return examRepo.findAll();
     }
 
+    // Phân trang theo khóa (keyset): độ trễ không tăng khi đi sâu vào danh sách
+    public CursorPage<Exam> getExamsPage(Long cursor, Integer size, Long topicId) {
+        int limit = CursorPage.clampSize(size);
+        List<Exam> rows = examRepo.findPage(CursorPage.startCursor(cursor), topicId, PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, Exam::getId);
+    }
+
     // --- 3. LẤY CHI TIẾT ĐỀ THI (Cho Giáo viên xem & In) ---
+    // Hai câu truy vấn: đầu đề + tên chủ đề, và một JOIN câu hỏi/đáp án cho cả đề
     public ExamDetailResponse getExamDetailById(Long examId) {
-        Exam exam = examRepo.findById(examId)
+        ExamHeaderRow exam = examRepo.findHeaderById(examId)
                 .orElseThrow(() -> new RuntimeException("Exam not found"));
 
-        // Lấy danh sách câu hỏi
-        List<ExamQuestion> eqs = examQuestionRepo.findByExamId(examId);
-
-        // Lấy thông tin Topic (để hiển thị tên chủ đề)
-        Topic topic = topicRepo.findById(exam.getTopicId()).orElse(null);
+        Collection<List<ExamAnswerRow>> eqs = groupByExamQuestion(examQuestionRepo.findAnswerRowsByExamId(examId));
 
         ExamDetailResponse res = new ExamDetailResponse();
         res.setId(exam.getId());
         res.setTopicId(exam.getTopicId());
-        res.setTopicTitle(topic != null ? topic.getTitle() : ""); // Bổ sung nếu DTO có trường này
+        res.setTopicTitle(exam.getTopicTitle() != null ? exam.getTopicTitle() : ""); // Bổ sung nếu DTO có trường này
         res.setExamCode(exam.getExamCode());
         
         // TRẢ VỀ TÊN VÀ THỜI GIAN ĐỂ IN
@@ -107,31 +180,23 @@ public class ExamService {
 
         List<ExamDetailResponse.QuestionDetail> questionDetails = new ArrayList<>();
 
-        for (ExamQuestion eq : eqs) {
-            Question q = questionRepo.findById(eq.getQuestionId()).orElseThrow();
+        for (List<ExamAnswerRow> rows : eqs) {
+            ExamAnswerRow first = rows.get(0);
 
             ExamDetailResponse.QuestionDetail qd = new ExamDetailResponse.QuestionDetail();
-            qd.id = q.getId();
-            qd.content = q.getContent();
-            qd.level = q.getLevel().toString();
-
-            // Lấy đáp án và map theo Code (A, B, C, D)
-            List<Answer> answers = answerRepo.findByQuestionId(q.getId());
-            Map<String, Answer> map = answers.stream()
-                    .collect(Collectors.toMap(Answer::getCode, a -> a));
+            qd.id = first.getQuestionId();
+            qd.content = first.getQuestionContent();
+            qd.level = first.getLevel().toString();
 
             List<ExamDetailResponse.AnswerDetail> answerDetails = new ArrayList<>();
             // Duyệt theo thứ tự đã trộn trong ExamQuestion
-            for (String code : eq.getAnswerOrder().split(",")) {
-                Answer a = map.get(code);
-                if (a != null) {
-                    ExamDetailResponse.AnswerDetail ad = new ExamDetailResponse.AnswerDetail();
-                    ad.id = a.getId();
-                    ad.code = a.getCode();
-                    ad.content = a.getContent();
-                    ad.isCorrect = a.getIsCorrect(); // Giáo viên cần thấy đáp án đúng
-                    answerDetails.add(ad);
-                }
+            for (ExamAnswerRow a : inAnswerOrder(rows)) {
+                ExamDetailResponse.AnswerDetail ad = new ExamDetailResponse.AnswerDetail();
+                ad.id = a.getAnswerId();
+                ad.code = a.getAnswerCode();
+                ad.content = a.getAnswerContent();
+                ad.isCorrect = a.getIsCorrect(); // Giáo viên cần thấy đáp án đúng
+                answerDetails.add(ad);
             }
 
             qd.answers = answerDetails;
@@ -143,12 +208,11 @@ public class ExamService {
     }
 
     // --- 4. LẤY ĐỀ THI ĐỂ LÀM BÀI (Cho Học sinh - Không lộ đáp án đúng) ---
+    // Số câu truy vấn cố định (đề + một JOIN câu hỏi/đáp án), không phụ thuộc số câu hỏi
     public RenderExamResponse renderExamByCode(String examCode) {
         Exam exam = examRepo.findByExamCode(examCode)
                 .orElseThrow(() -> new RuntimeException("Exam not found"));
 
-        List<ExamQuestion> eqs = examQuestionRepo.findByExamId(exam.getId());
-
         RenderExamResponse res = new RenderExamResponse();
         res.setExamId(exam.getId());
         res.setExamName(exam.getExamName()); // Hiển thị tên đề
@@ -156,27 +220,20 @@ public class ExamService {
 
         List<RenderExamResponse.QuestionRender> questionRenders = new ArrayList<>();
 
-        for (ExamQuestion eq : eqs) {
-            Question q = questionRepo.findById(eq.getQuestionId()).orElseThrow();
+        for (List<ExamAnswerRow> rows : groupByExamQuestion(examQuestionRepo.findAnswerRowsByExamId(exam.getId()))) {
+            ExamAnswerRow first = rows.get(0);
 
             RenderExamResponse.QuestionRender qr = new RenderExamResponse.QuestionRender();
-            qr.id = q.getId();
-            qr.content = q.getContent();
-
-            List<Answer> answers = answerRepo.findByQuestionId(q.getId());
-            Map<String, Answer> map = answers.stream()
-                    .collect(Collectors.toMap(Answer::getCode, a -> a));
+            qr.id = first.getQuestionId();
+            qr.content = first.getQuestionContent();
 
             List<RenderExamResponse.AnswerRender> ars = new ArrayList<>();
-            for (String code : eq.getAnswerOrder().split(",")) {
-                Answer a = map.get(code);
-                if (a != null) {
-                    RenderExamResponse.AnswerRender ar = new RenderExamResponse.AnswerRender();
-                    ar.id = a.getId();
-                    ar.content = a.getContent();
-                    // KHÔNG TRẢ VỀ isCorrect Ở ĐÂY
-                    ars.add(ar);
-                }
+            for (ExamAnswerRow a : inAnswerOrder(rows)) {
+                RenderExamResponse.AnswerRender ar = new RenderExamResponse.AnswerRender();
+                ar.id = a.getAnswerId();
+                ar.content = a.getAnswerContent();
+                // KHÔNG TRẢ VỀ isCorrect Ở ĐÂY
+                ars.add(ar);
             }
             qr.answers = ars;
             questionRenders.add(qr);
@@ -186,23 +243,76 @@ public class ExamService {
         return res;
     }
 
+    // Bản JSON đã dựng sẵn của đề (lấy từ cache, chỉ dựng lại khi chưa có hoặc đã bị xóa)
+    public byte[] renderExamSnapshot(String examCode) {
+        return snapshotCache.get(examCode, () -> renderExamByCode(examCode));
+    }
+
+    public Map<String, Long> getSnapshotCacheStats() {
+        return snapshotCache.stats();
+    }
+
+    // Gom các dòng phẳng theo từng câu trong đề (giữ thứ tự câu trong đề)
+    private static Collection<List<ExamAnswerRow>> groupByExamQuestion(List<ExamAnswerRow> rows) {
+        Map<Long, List<ExamAnswerRow>> grouped = new LinkedHashMap<>();
+        for (ExamAnswerRow row : rows) {
+            grouped.computeIfAbsent(row.getExamQuestionId(), k -> new ArrayList<>()).add(row);
+        }
+        return grouped.values();
+    }
+
+    // Sắp đáp án của một câu theo answerOrder đã trộn (VD: "B,A,D,C")
+    private static List<ExamAnswerRow> inAnswerOrder(List<ExamAnswerRow> rows) {
+        Map<String, ExamAnswerRow> byCode = new HashMap<>();
+        for (ExamAnswerRow row : rows) {
+            if (row.getAnswerCode() != null) {
+                byCode.put(row.getAnswerCode(), row);
+            }
+        }
+        List<ExamAnswerRow> ordered = new ArrayList<>(byCode.size());
+        for (String code : rows.get(0).getAnswerOrder().split(",")) {
+            ExamAnswerRow a = byCode.get(code);
+            if (a != null) {
+                ordered.add(a);
+            }
+        }
+        return ordered;
+    }
+
     // --- 5. NỘP BÀI ---
     @Transactional
     public StudentResult submitExam(SubmitExamRequest req) {
-        int correct = 0;
-        int total = req.getAnswers().size();
+        StudentResult result = gradeSubmission(req);
 
-        for (SubmitExamRequest.AnswerSubmit a : req.getAnswers()) {
-            List<Answer> answers = answerRepo.findByQuestionId(a.getQuestionId());
-            Answer right = answers.stream()
-                    .filter(ans -> Boolean.TRUE.equals(ans.getIsCorrect()))
-                    .findFirst()
-                    .orElse(null);
-
-            if (right != null && right.getCode().equals(a.getSelectedCode())) {
-                correct++;
-            }
+        // Chế độ ghi trễ: trả điểm ngay, kết quả được ghi theo batch ở luồng nền (thống kê cập nhật khi đã ghi)
+        if (resultWriteBehind.isEnabled()) {
+            resultWriteBehind.enqueue(result);
+            return result;
         }
+        StudentResult saved = studentResultRepo.save(result);
+        recordAfterCommit(saved);
+        return saved;
+    }
+
+    // Cập nhật thống kê cộng dồn khi kết quả đã thực sự được lưu
+    private void recordAfterCommit(StudentResult result) {
+        AfterCommit.run(() -> statisticsAggregator.record(result));
+        dashboardCounters.resultsChanged(1);
+        activityFeed.publishAfterCommit(ActivityEvent.Type.RESULT, result.getId(), "Đã chấm bài thi",
+                StudentResultBatchWriter.describe(result), "Vừa chấm");
+    }
+
+    public ExamAnswerKey getAnswerKey(Long examId) {
+        return answerKeyCache.get(examId);
+    }
+
+    // Chấm bằng đáp án đã tính sẵn của đề: chỉ so sánh trong bộ nhớ, không đọc DB.
+    // Trả về StudentResult chưa lưu.
+    public StudentResult gradeSubmission(SubmitExamRequest req) {
+        ExamAnswerKey key = answerKeyCache.get(req.getExamId());
+        byte[] selections = key.toSelections(req.getAnswers());
+        int correct = key.countCorrect(selections);
+        int total = req.getAnswers().size();
 
         double score = total > 0 ? ((double) correct / total) * 10 : 0;
 
@@ -210,68 +320,161 @@ public class ExamService {
         result.setExamId(req.getExamId());
         result.setStudentId(req.getStudentId());
         result.setScore(score);
-
-        return studentResultRepo.save(result);
+        // Giữ lại lựa chọn của học sinh (3 bit/câu) để phân tích câu hỏi và chấm lại
+        result.setResponses(ResponseSheetCodec.encode(selections));
+        result.setResponseCount(selections.length);
+        return result;
     }
 
     // --- CÁC HÀM PHỤ TRỢ KHÁC ---
 
-    // Placeholder cho OCR (Chưa implement logic xử lý ảnh)
+    // Chấm phiếu trả lời đã quét (OMR, xử lý trong tiến trình - xem service/omr)
+    @Transactional
     public StudentResult gradeByOCR(Long examId, Long studentId, MultipartFile file) {
+        BufferedImage image;
+        try (InputStream in = file.getInputStream()) {
+            image = OmrSheetRecognizer.loadImage(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Không đọc được ảnh phiếu trả lời");
+        }
+        StudentResult saved = studentResultRepo.save(gradeSheetImage(examId, studentId, image));
+        recordAfterCommit(saved);
+        return saved;
+    }
+
+    // Nhận dạng một ảnh phiếu và chấm theo đáp án của đề. Trả về StudentResult chưa lưu.
+    // Câu bỏ trống hoặc tô nhiều ô tính là sai; điểm tính trên tổng số câu của đề.
+    public StudentResult gradeSheetImage(Long examId, Long studentId, BufferedImage image) {
+        if (image == null) {
+            throw new IllegalArgumentException("Định dạng ảnh không được hỗ trợ (chỉ nhận PNG, JPEG, BMP, GIF)");
+        }
+        ExamAnswerKey key = answerKeyCache.get(examId);
+        if (key.size() == 0) {
+            throw new RuntimeException("Exam not found");
+        }
+        byte[] marked = OmrSheetRecognizer.read(image, answerSheetLayout(key));
+        byte[] selections = key.fromSheetPositions(marked);
+        int correct = key.countCorrect(selections);
+
         StudentResult result = new StudentResult();
         result.setExamId(examId);
         result.setStudentId(studentId);
-        result.setScore(0.0);
-        return studentResultRepo.save(result);
+        result.setScore(((double) correct / key.size()) * 10);
+        result.setResponses(ResponseSheetCodec.encode(selections));
+        result.setResponseCount(selections.length);
+        return result;
+    }
+
+    // Ảnh PNG phiếu trả lời trắng của đề, cùng bố cục mà gradeByOCR dùng để nhận dạng
+    public byte[] renderAnswerSheet(Long examId) {
+        Exam exam = examRepo.findById(examId)
+                .orElseThrow(() -> new RuntimeException("Exam not found"));
+        ExamAnswerKey key = answerKeyCache.get(examId);
+        if (key.size() == 0) {
+            throw new RuntimeException("Exam has no questions");
+        }
+        return OmrSheetRenderer.renderPng(answerSheetLayout(key), "Mã đề: " + exam.getExamCode() + " - " + exam.getExamName());
+    }
+
+    private static OmrSheetLayout answerSheetLayout(ExamAnswerKey key) {
+        return OmrSheetLayout.forExam(key.size(), key.maxOptions());
+    }
+
+    // Phiếu bài làm đã chấm: lựa chọn của học sinh so với đáp án hiện tại của đề
+    public GradedSheetResponse getGradedSheet(Long examId, Long resultId) {
+        StudentResult result = studentResultRepo.findById(resultId)
+                .filter(r -> examId.equals(r.getExamId()))
+                .orElseThrow(() -> new RuntimeException("Student result not found"));
+
+        GradedSheetResponse res = new GradedSheetResponse();
+        res.resultId = result.getId();
+        res.examId = result.getExamId();
+        res.studentId = result.getStudentId();
+        res.score = result.getScore();
+        res.items = new ArrayList<>();
+        if (result.getResponses() == null || result.getResponseCount() == null) {
+            return res; // Bài nộp trước khi lưu lựa chọn
+        }
+
+        ExamAnswerKey key = answerKeyCache.get(examId);
+        // Lựa chọn được lưu theo vị trí câu: đề đã thêm/bớt câu thì vị trí không còn khớp (như ItemAnalysisService)
+        if (result.getResponseCount() != key.size()) {
+            res.stale = true;
+            return res;
+        }
+        byte[] selections = ResponseSheetCodec.decode(result.getResponses(), result.getResponseCount());
+        for (int i = 0; i < selections.length; i++) {
+            GradedSheetResponse.Item item = new GradedSheetResponse.Item();
+            item.position = i + 1;
+            item.questionId = key.questionIdAt(i);
+            item.selectedCode = selections[i] == ResponseSheetCodec.INVALID ? "INVALID" : ExamAnswerKey.codeOf(selections[i]);
+            item.correctCode = ExamAnswerKey.codeOf(key.correctCodeAt(i));
+            item.correct = key.correctCodeAt(i) != ExamAnswerKey.NO_CODE && key.correctCodeAt(i) == selections[i];
+            if (item.correct) {
+                res.correctCount++;
+            }
+            res.items.add(item);
+        }
+        return res;
     }
 
     public List<StudentResult> getResultsByExamId(Long examId) {
         return studentResultRepo.findByExamId(examId);
     }
 
+    public CursorPage<StudentResult> getResultsPage(Long examId, Long cursor, Integer size) {
+        int limit = CursorPage.clampSize(size);
+        List<StudentResult> rows = studentResultRepo.findByExamIdAndIdLessThanOrderByIdDesc(
+                examId, CursorPage.startCursor(cursor), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, StudentResult::getId);
+    }
+
+    // Thống kê đọc từ bộ đếm cộng dồn trong bộ nhớ - O(1), không quét student_result
     public ExamStatisticsResponse getExamStatistics(Long examId) {
-        List<StudentResult> results = studentResultRepo.findByExamId(examId);
-        ExamStatisticsResponse stats = new ExamStatisticsResponse();
-        stats.setExamId(examId);
-        stats.setTotalStudents(results.size());
-
-        if (results.isEmpty()) {
-            stats.setAverageScore(0.0);
-            stats.setMaxScore(0.0);
-            stats.setMinScore(0.0);
-            stats.setScoreDistribution(new HashMap<>());
-            return stats;
+        return statisticsAggregator.getStatistics(examId);
+    }
+
+    // Thứ hạng phần trăm theo điểm truyền vào, hoặc theo bài nộp gần nhất của học sinh
+    public PercentileRankResponse getPercentileRank(Long examId, Double score, Long studentId) {
+        PercentileRankResponse res = new PercentileRankResponse();
+        res.examId = examId;
+        res.studentId = studentId;
+        if (score == null) {
+            if (studentId == null) {
+                throw new IllegalArgumentException("Cần truyền score hoặc studentId");
+            }
+            score = studentResultRepo.findFirstByExamIdAndStudentIdOrderByIdDesc(examId, studentId)
+                    .map(StudentResult::getScore)
+                    .orElseThrow(() -> new RuntimeException("Student result not found"));
         }
+        res.score = score;
+        res.percentileRank = statisticsAggregator.percentileRank(examId, score);
+        res.quantileErrorBound = ScoreQuantileSketch.ERROR_BOUND;
+        return res;
+    }
 
-        Double avg = studentResultRepo.getAverageScoreByExamId(examId);
-        stats.setAverageScore(avg != null ? avg : 0.0);
-
-        DoubleSummaryStatistics summary = results.stream()
-                .mapToDouble(StudentResult::getScore)
-                .summaryStatistics();
-        stats.setMaxScore(summary.getMax());
-        stats.setMinScore(summary.getMin());
-
-        Map<String, Integer> distribution = new LinkedHashMap<>();
-        distribution.put("0-2", 0); distribution.put("2-4", 0);
-        distribution.put("4-6", 0); distribution.put("6-8", 0);
-        distribution.put("8-10", 0);
-
-        for (StudentResult r : results) {
-            double score = r.getScore();
-            if (score < 2) distribution.merge("0-2", 1, Integer::sum);
-            else if (score < 4) distribution.merge("2-4", 1, Integer::sum);
-            else if (score < 6) distribution.merge("4-6", 1, Integer::sum);
-            else if (score < 8) distribution.merge("6-8", 1, Integer::sum);
-            else distribution.merge("8-10", 1, Integer::sum);
+    public ExamStatisticsResponse rebuildExamStatistics(Long examId) {
+        if (!examRepo.existsById(examId)) {
+            throw new RuntimeException("Exam not found");
         }
-        stats.setScoreDistribution(distribution);
-        return stats;
+        statisticsAggregator.rebuild(examId);
+        return statisticsAggregator.getStatistics(examId);
     }
 
     @Transactional
     public void deleteExam(Long examId) {
+        String examCode = examRepo.findById(examId).map(Exam::getExamCode).orElse(null);
         examQuestionRepo.deleteByExamId(examId);
         examRepo.deleteById(examId);
+        if (examCode != null) {
+            dashboardCounters.examsChanged(-1);
+        }
+        AfterCommit.run(() -> {
+            if (examCode != null) {
+                snapshotCache.invalidate(examCode);
+            }
+            answerKeyCache.invalidate(examId);
+            statisticsAggregator.remove(examId);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.capstone.planbookai.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Cache trong bộ nhớ cho nội dung đề thi phía học sinh, lưu sẵn dạng JSON bytes theo mã đề.
+// - Giới hạn theo tổng số byte và số mục, loại bỏ mục ít dùng nhất (LRU).
+// - Single-flight: khi nhiều học sinh cùng mở một mã đề chưa có trong cache, chỉ một request dựng đề.
+// - Bị xóa khi xóa đề hoặc sửa/xóa câu hỏi thuộc đề.
+@Component
+public class ExamSnapshotCache {
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final int maxEntries;
+
+    // accessOrder = true -> thứ tự LRU
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+
+    // Lượt dựng đang chạy theo mã đề. invalidate gỡ lượt dựng của đúng mã đề đó (dưới khóa của cache),
+    // nên lượt dựng chỉ được lưu kết quả nếu lúc lưu nó vẫn còn là lượt dựng hiện hành của mã đề
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExamSnapshotCache(
+            ObjectMapper objectMapper,
+            @Value("${planbookai.cache.exam-snapshot.max-bytes:67108864}") long maxBytes,
+            @Value("${planbookai.cache.exam-snapshot.max-entries:10000}") int maxEntries
+    ) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+    }
+
+    public byte[] get(String examCode, Supplier<?> loader) {
+        byte[] cached = lookup(examCode);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(examCode, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(loader.get());
+            synchronized (this) {
+                if (inFlight.get(examCode) == mine) {
+                    store(examCode, bytes);
+                }
+            }
+            mine.complete(bytes);
+            return bytes;
+        } catch (JsonProcessingException e) {
+            mine.completeExceptionally(e);
+            throw new RuntimeException("Không thể tuần tự hóa đề thi " + examCode, e);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(examCode, mine);
+        }
+    }
+
+    public void invalidate(String examCode) {
+        synchronized (this) {
+            inFlight.remove(examCode);
+            byte[] removed = entries.remove(examCode);
+            if (removed != null) {
+                currentBytes -= removed.length;
+            }
+        }
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        synchronized (this) {
+            stats.put("entries", (long) entries.size());
+            stats.put("bytes", currentBytes);
+        }
+        return stats;
+    }
+
+    private synchronized byte[] lookup(String examCode) {
+        return entries.get(examCode);
+    }
+
+    private synchronized void store(String examCode, byte[] bytes) {
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        byte[] previous = entries.put(examCode, bytes);
+        if (previous != null) {
+            currentBytes -= previous.length;
+        }
+        currentBytes += bytes.length;
+
+        Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+        while ((currentBytes > maxBytes || entries.size() > maxEntries) && it.hasNext()) {
+            Map.Entry<String, byte[]> eldest = it.next();
+            currentBytes -= eldest.getValue().length;
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.ExamStatisticsResponse;
+import com.capstone.planbookai.entity.StudentResult;
+import com.capstone.planbookai.repository.StudentResultRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Giữ ExamScoreStats cho từng đề trong bộ nhớ.
+// Nạp một lần lúc khởi động bằng truy vấn GROUP BY (exam, score), sau đó mọi đường ghi kết quả
+// (nộp bài, nộp hàng loạt, ghi trễ, OCR) gọi record() nên endpoint thống kê không cần quét student_result.
+@Component
+public class ExamStatisticsAggregator {
+
+    private final StudentResultRepository studentResultRepository;
+    private volatile Map<Long, ExamScoreStats> statsByExam = new ConcurrentHashMap<>();
+
+    // record() giữ khóa đọc; lần dựng lại giữ khóa ghi khi bắt đầu ghi nhật ký và khi thay bản mới.
+    // Truy vấn dựng lại chỉ đếm các bài có id <= journalFromId (id lớn nhất đọc ngay sau khi bật nhật ký);
+    // bài có id lớn hơn được cộng từ nhật ký trước khi thay. Nhờ đó bài vừa lưu trong lúc truy vấn chạy
+    // không bị mất, cũng không bị đếm hai lần.
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private Queue<Object[]> journal; // [examId, resultId, score] (score null = đề bị xóa); khác null khi đang dựng lại
+    private long journalFromId;
+
+    public ExamStatisticsAggregator(StudentResultRepository studentResultRepository) {
+        this.studentResultRepository = studentResultRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuildAll() {
+        startJournal();
+        try {
+            Map<Long, ExamScoreStats> fresh = new ConcurrentHashMap<>();
+            for (Object[] row : studentResultRepository.countScoresGroupedByExam(journalFromId)) {
+                fresh.computeIfAbsent((Long) row[0], k -> new ExamScoreStats())
+                        .record((Double) row[1], (Long) row[2]);
+            }
+            swapLock.writeLock().lock();
+            try {
+                replayJournal(fresh, null);
+                statsByExam = fresh;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            stopJournal();
+        }
+    }
+
+    // Dựng lại thống kê của một đề từ dữ liệu đã lưu (VD: sau khi sửa dữ liệu trực tiếp trong DB)
+    public synchronized void rebuild(Long examId) {
+        startJournal();
+        try {
+            ExamScoreStats stats = new ExamScoreStats();
+            List<Object[]> rows = studentResultRepository.countScoresByExamId(examId, journalFromId);
+            for (Object[] row : rows) {
+                stats.record((Double) row[0], (Long) row[1]);
+            }
+            swapLock.writeLock().lock();
+            try {
+                Map<Long, ExamScoreStats> fresh = new HashMap<>();
+                fresh.put(examId, stats);
+                replayJournal(fresh, examId);
+                if (fresh.containsKey(examId)) {
+                    statsByExam.put(examId, stats);
+                } else {
+                    statsByExam.remove(examId); // đề bị xóa trong lúc dựng lại
+                }
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            stopJournal();
+        }
+    }
+
+    // Gọi khi kết quả đã được lưu (đã có id)
+    public void record(StudentResult result) {
+        Long examId = result.getExamId();
+        Double score = result.getScore();
+        if (examId == null || score == null) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            statsByExam.computeIfAbsent(examId, k -> new ExamScoreStats()).record(score);
+            Queue<Object[]> pending = journal;
+            if (pending != null) {
+                pending.add(new Object[]{examId, result.getId(), score});
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // Đề bị xóa: bỏ thống kê để không giữ mãi trong bộ nhớ và không trả thống kê của đề không còn tồn tại
+    public void remove(Long examId) {
+        if (examId == null) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            statsByExam.remove(examId);
+            Queue<Object[]> pending = journal;
+            if (pending != null) {
+                pending.add(new Object[]{examId, null, null});
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void startJournal() {
+        swapLock.writeLock().lock();
+        try {
+            journal = new ConcurrentLinkedQueue<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        // Đọc sau khi bật nhật ký: bài lưu sau lần đọc này có id lớn hơn và chắc chắn nằm trong nhật ký
+        journalFromId = studentResultRepository.findMaxId();
+    }
+
+    private void stopJournal() {
+        swapLock.writeLock().lock();
+        try {
+            journal = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    // Gọi khi đang giữ khóa ghi; onlyExamId = null -> mọi đề. Bài có id <= journalFromId đã nằm trong truy vấn.
+    private void replayJournal(Map<Long, ExamScoreStats> fresh, Long onlyExamId) {
+        for (Object[] entry : journal) {
+            Long examId = (Long) entry[0];
+            Long resultId = (Long) entry[1];
+            if (onlyExamId != null && !onlyExamId.equals(examId)) {
+                continue;
+            }
+            if (entry[2] == null) {
+                fresh.remove(examId);
+            } else if (resultId == null || resultId > journalFromId) {
+                fresh.computeIfAbsent(examId, k -> new ExamScoreStats()).record((Double) entry[2]);
+            }
+        }
+    }
+
+    public double percentileRank(Long examId, double score) {
+        ExamScoreStats stats = statsByExam.get(examId);
+        return stats != null ? stats.percentileRank(score) : 0.0;
+    }
+
+    public ExamStatisticsResponse getStatistics(Long examId) {
+        ExamScoreStats stats = statsByExam.get(examId);
+        return (stats != null ? stats : new ExamScoreStats()).toResponse(examId);
+    }
+}
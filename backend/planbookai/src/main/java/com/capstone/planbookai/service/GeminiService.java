@@ -1,67 +1,49 @@
 package com.capstone.planbookai.service;
 
 import com.capstone.planbookai.model.PromptTemplate;
-import com.google.genai.Client;
-import com.google.genai.types.GenerateContentResponse;
+import com.capstone.planbookai.service.ai.QuestionGenerationModel;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class GeminiService {
 
-    @Value("${gemini.api.key}")
-    private String apiKey;
-
     @Autowired
     private PromptTemplateService promptTemplateService;
 
-    // Reverting to gemini-2.5-flash-lite
-    private static final String MODEL_NAME = "gemini-2.5-flash-lite";
+    @Autowired
+    private QuestionGenerationModel model;
 
-    public String generateQuestion(String topic, String level, String subject, String grade, String promptName) {
-        try {
-            // 1. Get Prompt
-            String targetPrompt = (promptName != null && !promptName.isEmpty()) ? promptName : "question_generation_mcq";
-            Optional<PromptTemplate> templateOpt = promptTemplateService.getTemplateByName(targetPrompt);
-            
-            // Fallback content if template missing
-            String template = templateOpt.map(PromptTemplate::getContent).orElse("Create a {level} question about {topic} for {subject} {grade}. Format: JSON.");
-            
-            String prompt = template
-                    .replace("{topic}", topic)
-                    .replace("{level}", level)
-                    .replace("{subject}", subject)
-                    .replace("{grade}", grade);
+    // Không chặn luồng gọi trong lúc chờ mô hình; kết quả là phần JSON trong văn bản mô hình trả về
+    public CompletableFuture<String> generateQuestion(String topic, String level, String subject, String grade, String promptName) {
+        // 1. Get Prompt
+        String targetPrompt = (promptName != null && !promptName.isEmpty()) ? promptName : "question_generation_mcq";
+        Optional<PromptTemplate> templateOpt = promptTemplateService.getTemplateByName(targetPrompt);
 
-            // 2. Call Gemini SDK
-            Client client = Client.builder()
-                    .apiKey(apiKey)
-                    .build();
+        // Fallback content if template missing
+        String template = templateOpt.map(PromptTemplate::getContent).orElse("Create a {level} question about {topic} for {subject} {grade}. Format: JSON.");
 
-            GenerateContentResponse response = client.models.generateContent(
-                    MODEL_NAME,
-                    prompt,
-                    null
-            );
+        String prompt = template
+                .replace("{topic}", topic)
+                .replace("{level}", level)
+                .replace("{subject}", subject)
+                .replace("{grade}", grade);
 
-            String text = response.text();
-            
-            // 3. Robust JSON Extraction
-            int startIndex = text.indexOf("{");
-            int endIndex = text.lastIndexOf("}");
-            
-            if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
-                return text.substring(startIndex, endIndex + 1);
-            }
-            
-            return text.trim();
+        // 2. Call Gemini (bất đồng bộ), 3. Robust JSON Extraction
+        return model.generate(prompt).thenApply(GeminiService::extractJson);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("Gemini generation failed: " + e.getMessage());
+    static String extractJson(String text) {
+        int startIndex = text.indexOf("{");
+        int endIndex = text.lastIndexOf("}");
+
+        if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
+            return text.substring(startIndex, endIndex + 1);
         }
+
+        return text.trim();
     }
 }
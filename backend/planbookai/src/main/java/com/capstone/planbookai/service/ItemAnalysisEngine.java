@@ -0,0 +1,107 @@
+package com.capstone.planbookai.service;
+
+import java.util.stream.IntStream;
+
+// Phân tích câu hỏi trên mảng nguyên thủy (không dùng entity):
+// - difficulty: p-value = tỉ lệ học sinh làm đúng
+// - discrimination: hệ số point-biserial giữa việc làm đúng câu và điểm phần còn lại (tổng trừ câu đó)
+// - optionCounts: số lần chọn từng phương án A..F, bỏ trống, không hợp lệ (phân tích phương án nhiễu)
+// Lựa chọn được lưu theo cột (câu j, học sinh i) -> selections[j * students + i] để mỗi câu quét liền mạch.
+public final class ItemAnalysisEngine {
+
+    // A..F, bỏ trống, không hợp lệ
+    public static final int OPTION_SLOTS = 8;
+    public static final int BLANK_SLOT = 6;
+    public static final int INVALID_SLOT = 7;
+
+    private static final int STUDENT_BLOCK = 4096;
+
+    private ItemAnalysisEngine() {
+    }
+
+    public static final class ItemStats {
+        public int correctCount;
+        public double difficulty;
+        public double discrimination;
+        public final int[] optionCounts = new int[OPTION_SLOTS];
+    }
+
+    public static ItemStats[] analyze(byte[] selections, int students, int questions, byte[] correctCodes) {
+        int[] totals = new int[students];
+        if (students == 0) {
+            return IntStream.range(0, questions).mapToObj(j -> new ItemStats()).toArray(ItemStats[]::new);
+        }
+
+        // 1. Tổng số câu đúng của từng học sinh, song song theo khối học sinh
+        int blocks = (students + STUDENT_BLOCK - 1) / STUDENT_BLOCK;
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int from = b * STUDENT_BLOCK;
+            int to = Math.min(students, from + STUDENT_BLOCK);
+            for (int j = 0; j < questions; j++) {
+                byte correct = correctCodes[j];
+                if (correct == ExamAnswerKey.NO_CODE) {
+                    continue;
+                }
+                int base = j * students;
+                for (int i = from; i < to; i++) {
+                    if (selections[base + i] == correct) {
+                        totals[i]++;
+                    }
+                }
+            }
+        });
+
+        long sumTotals = 0;
+        long sumTotalsSq = 0;
+        for (int t : totals) {
+            sumTotals += t;
+            sumTotalsSq += (long) t * t;
+        }
+        long totalSum = sumTotals;
+        long totalSumSq = sumTotalsSq;
+
+        // 2. Thống kê từng câu, song song theo câu
+        return IntStream.range(0, questions).parallel().mapToObj(j -> {
+            ItemStats stats = new ItemStats();
+            byte correct = correctCodes[j];
+            int base = j * students;
+            long restSumCorrect = 0;
+            for (int i = 0; i < students; i++) {
+                byte s = selections[base + i];
+                stats.optionCounts[slotOf(s)]++;
+                if (correct != ExamAnswerKey.NO_CODE && s == correct) {
+                    stats.correctCount++;
+                    restSumCorrect += totals[i] - 1;
+                }
+            }
+
+            int nc = stats.correctCount;
+            double p = (double) nc / students;
+            stats.difficulty = p;
+
+            // Điểm phần còn lại: rest = total - x (x = 1 nếu đúng câu j)
+            double restSum = totalSum - nc;
+            double restSumSq = totalSumSq - 2.0 * (restSumCorrect + nc) + nc;
+            double restMean = restSum / students;
+            double restVar = restSumSq / students - restMean * restMean;
+            if (nc == 0 || nc == students || restVar <= 0) {
+                stats.discrimination = 0.0;
+            } else {
+                double meanCorrect = (double) restSumCorrect / nc;
+                double meanWrong = (restSum - restSumCorrect) / (students - nc);
+                stats.discrimination = (meanCorrect - meanWrong) / Math.sqrt(restVar) * Math.sqrt(p * (1 - p));
+            }
+            return stats;
+        }).toArray(ItemStats[]::new);
+    }
+
+    private static int slotOf(byte selection) {
+        if (selection == ResponseSheetCodec.BLANK) {
+            return BLANK_SLOT;
+        }
+        if (selection < 0 || selection >= BLANK_SLOT) {
+            return INVALID_SLOT;
+        }
+        return selection;
+    }
+}
@@ -0,0 +1,182 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.ItemAnalysisResponse;
+import com.capstone.planbookai.entity.Question;
+import com.capstone.planbookai.entity.QuestionItemStat;
+import com.capstone.planbookai.repository.QuestionItemStatRepository;
+import com.capstone.planbookai.repository.QuestionRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Phân tích câu hỏi của một đề từ lựa chọn đã lưu (cột responses của student_result):
+// đọc thẳng bằng JDBC vào mảng byte, tính bằng ItemAnalysisEngine, rồi ghi lại
+// kết quả theo đề và chỉ số cộng dồn trên Question.
+@Service
+public class ItemAnalysisService {
+
+    private static final String SELECT_RESPONSES_SQL =
+            "SELECT responses, response_count FROM student_result WHERE exam_id = ? AND responses IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AnswerKeyCache answerKeyCache;
+    private final QuestionItemStatRepository itemStatRepo;
+    private final QuestionRepository questionRepo;
+
+    public ItemAnalysisService(
+            JdbcTemplate jdbcTemplate,
+            AnswerKeyCache answerKeyCache,
+            QuestionItemStatRepository itemStatRepo,
+            QuestionRepository questionRepo
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.answerKeyCache = answerKeyCache;
+        this.itemStatRepo = itemStatRepo;
+        this.questionRepo = questionRepo;
+    }
+
+    @Transactional
+    public ItemAnalysisResponse analyzeExam(Long examId) {
+        long start = System.nanoTime();
+        ExamAnswerKey key = answerKeyCache.get(examId);
+        int questions = key.size();
+        if (questions == 0) {
+            throw new RuntimeException("Exam not found or has no questions");
+        }
+
+        SelectionMatrix matrix = loadSelections(examId, questions);
+        byte[] correctCodes = new byte[questions];
+        for (int j = 0; j < questions; j++) {
+            correctCodes[j] = key.correctCodeAt(j);
+        }
+        ItemAnalysisEngine.ItemStats[] stats =
+                ItemAnalysisEngine.analyze(matrix.byQuestion(), matrix.students, questions, correctCodes);
+
+        if (matrix.students > 0) {
+            saveItemStats(examId, key, stats, matrix.students);
+        }
+
+        ItemAnalysisResponse res = new ItemAnalysisResponse();
+        res.examId = examId;
+        res.submissions = matrix.students;
+        res.items = new ArrayList<>(questions);
+        for (int j = 0; j < questions; j++) {
+            ItemAnalysisResponse.Item item = new ItemAnalysisResponse.Item();
+            item.position = j + 1;
+            item.questionId = key.questionIdAt(j);
+            item.correctCode = ExamAnswerKey.codeOf(correctCodes[j]);
+            item.correctCount = stats[j].correctCount;
+            item.difficulty = stats[j].difficulty;
+            item.discrimination = stats[j].discrimination;
+            item.optionCounts = optionCounts(stats[j].optionCounts);
+            res.items.add(item);
+        }
+        res.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return res;
+    }
+
+    private SelectionMatrix loadSelections(Long examId, int questions) {
+        SelectionMatrix matrix = new SelectionMatrix(questions);
+        jdbcTemplate.query(SELECT_RESPONSES_SQL, rs -> {
+            Object count = rs.getObject(2);
+            // Bài làm thuộc phiên bản đề khác số câu thì bỏ qua
+            if (count == null || ((Number) count).intValue() != questions) {
+                return;
+            }
+            matrix.add(ResponseSheetCodec.decode(rs.getBytes(1), questions));
+        }, examId);
+        return matrix;
+    }
+
+    private void saveItemStats(Long examId, ExamAnswerKey key, ItemAnalysisEngine.ItemStats[] stats, int students) {
+        itemStatRepo.deleteByExamId(examId);
+        List<QuestionItemStat> rows = new ArrayList<>(stats.length);
+        Map<Long, Boolean> seen = new HashMap<>();
+        for (int j = 0; j < stats.length; j++) {
+            Long questionId = key.questionIdAt(j);
+            if (seen.put(questionId, Boolean.TRUE) != null) {
+                continue;
+            }
+            QuestionItemStat row = new QuestionItemStat();
+            row.setExamId(examId);
+            row.setQuestionId(questionId);
+            row.setAttempts(students);
+            row.setCorrectCount(stats[j].correctCount);
+            row.setDiscrimination(stats[j].discrimination);
+            rows.add(row);
+        }
+        itemStatRepo.saveAll(rows);
+        itemStatRepo.flush();
+
+        // Cộng dồn lại trên mọi đề có chứa các câu hỏi này
+        Map<Long, Object[]> totals = new HashMap<>();
+        for (Object[] agg : itemStatRepo.aggregateByQuestionIds(seen.keySet())) {
+            totals.put((Long) agg[0], agg);
+        }
+        List<Question> updated = new ArrayList<>();
+        for (Question q : questionRepo.findAllById(seen.keySet())) {
+            Object[] agg = totals.get(q.getId());
+            if (agg == null) {
+                continue;
+            }
+            long attempts = ((Number) agg[1]).longValue();
+            if (attempts == 0) {
+                continue;
+            }
+            q.setAttemptCount((int) Math.min(Integer.MAX_VALUE, attempts));
+            q.setDifficultyIndex(((Number) agg[2]).doubleValue() / attempts);
+            q.setDiscriminationIndex(((Number) agg[3]).doubleValue() / attempts);
+            updated.add(q);
+        }
+        questionRepo.saveAll(updated);
+    }
+
+    private static Map<String, Integer> optionCounts(int[] counts) {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        for (int i = 0; i < ItemAnalysisEngine.BLANK_SLOT; i++) {
+            map.put(ExamAnswerKey.codeOf(i), counts[i]);
+        }
+        map.put("BLANK", counts[ItemAnalysisEngine.BLANK_SLOT]);
+        map.put("INVALID", counts[ItemAnalysisEngine.INVALID_SLOT]);
+        return map;
+    }
+
+    // Lựa chọn của mọi bài làm, lưu liền theo từng bài rồi chuyển sang theo từng câu khi phân tích
+    private static final class SelectionMatrix {
+        private final int questions;
+        private byte[] byStudent;
+        private int students;
+
+        SelectionMatrix(int questions) {
+            this.questions = questions;
+            this.byStudent = new byte[questions * 1024];
+        }
+
+        void add(byte[] selections) {
+            int offset = students * questions;
+            if (offset + questions > byStudent.length) {
+                byStudent = Arrays.copyOf(byStudent, Math.max(byStudent.length * 2, offset + questions));
+            }
+            System.arraycopy(selections, 0, byStudent, offset, questions);
+            students++;
+        }
+
+        byte[] byQuestion() {
+            byte[] columns = new byte[students * questions];
+            for (int i = 0; i < students; i++) {
+                int row = i * questions;
+                for (int j = 0; j < questions; j++) {
+                    columns[j * students + i] = byStudent[row + j];
+                }
+            }
+            return columns;
+        }
+    }
+}
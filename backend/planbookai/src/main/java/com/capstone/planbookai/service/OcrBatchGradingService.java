@@ -0,0 +1,316 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.OcrBatchJobResponse;
+import com.capstone.planbookai.entity.StudentResult;
+import com.capstone.planbookai.service.omr.OmrSheetRecognizer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Chấm hàng loạt phiếu trả lời từ một file ZIP ảnh quét (mỗi ảnh một phiếu, tên file bắt đầu bằng mã học sinh).
+// - File upload được chuyển sang file tạm rồi đọc lần lượt từng entry, không nạp cả file vào bộ nhớ.
+// - Mỗi phiếu được nhận dạng trên work-stealing pool; semaphore giới hạn số ảnh đang giữ trong bộ nhớ.
+// - Kết quả được ghi theo batch JDBC; tiến độ từng phiếu xem qua GET .../grade-ocr/batch/{jobId}.
+@Service
+public class OcrBatchGradingService {
+
+    private static final int SAVE_BATCH_SIZE = 100;
+    // Ảnh phiếu lớn hơn mức này bị bỏ qua (chống file nén bất thường)
+    private static final int MAX_SHEET_BYTES = 20 * 1024 * 1024;
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+    // Tên file: mã học sinh là dãy số đầu tiên, VD "10235.jpg", "10235_nguyenvana.png"
+    private static final Pattern STUDENT_ID = Pattern.compile("(\\d+)");
+
+    private final ExamService examService;
+    private final StudentResultBatchWriter batchWriter;
+    private final ExamStatisticsAggregator statisticsAggregator;
+    private final ExecutorService sheetPool;
+    private final ExecutorService jobRunner;
+    private final int maxInFlight;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public OcrBatchGradingService(
+            ExamService examService,
+            StudentResultBatchWriter batchWriter,
+            ExamStatisticsAggregator statisticsAggregator,
+            @Value("${planbookai.ocr.batch.threads:0}") int threads,
+            @Value("${planbookai.ocr.batch.max-in-flight:0}") int maxInFlight
+    ) {
+        this.examService = examService;
+        this.batchWriter = batchWriter;
+        this.statisticsAggregator = statisticsAggregator;
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.sheetPool = Executors.newWorkStealingPool(parallelism);
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : parallelism * 2;
+        this.jobRunner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "ocr-batch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public OcrBatchJobResponse start(Long examId, MultipartFile file) throws IOException {
+        String name = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".pdf")) {
+            throw new IllegalArgumentException("Chưa hỗ trợ PDF, hãy nén các ảnh phiếu thành một file ZIP");
+        }
+        // Kiểm tra đề trước khi nhận file
+        if (examService.getAnswerKey(examId).size() == 0) {
+            throw new RuntimeException("Exam not found");
+        }
+
+        Path archive = Files.createTempFile("ocr-batch-", ".zip");
+        ZipFile zip;
+        try {
+            file.transferTo(archive);
+            zip = new ZipFile(archive.toFile());
+        } catch (IOException e) {
+            Files.deleteIfExists(archive);
+            throw new IllegalArgumentException("File tải lên không phải ZIP hợp lệ");
+        }
+
+        // Từ đây file ZIP và file tạm thuộc về job; lỗi trước khi giao cho jobRunner thì phải tự dọn
+        Job job = null;
+        try {
+            List<ZipEntry> entries = new ArrayList<>();
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                ZipEntry entry = e.nextElement();
+                if (isSheetImage(entry)) {
+                    entries.add(entry);
+                }
+            }
+
+            job = new Job(UUID.randomUUID().toString(), examId, entries.size());
+            jobs.put(job.id, job);
+            Job started = job;
+            jobRunner.execute(() -> run(started, zip, archive, entries));
+            return job.snapshot();
+        } catch (RuntimeException | Error e) {
+            if (job != null) {
+                jobs.remove(job.id);
+            }
+            try {
+                zip.close();
+            } finally {
+                Files.deleteIfExists(archive);
+            }
+            throw e;
+        }
+    }
+
+    public OcrBatchJobResponse getJob(Long examId, String jobId) {
+        removeExpiredJobs();
+        Job job = jobs.get(jobId);
+        if (job == null || !job.examId.equals(examId)) {
+            throw new RuntimeException("OCR batch job not found");
+        }
+        return job.snapshot();
+    }
+
+    private void run(Job job, ZipFile zip, Path archive, List<ZipEntry> entries) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<Graded> pending = new ArrayList<>(SAVE_BATCH_SIZE);
+        try (zip) {
+            for (ZipEntry entry : entries) {
+                inFlight.acquire();
+                byte[] bytes;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    bytes = in.readNBytes(MAX_SHEET_BYTES + 1);
+                } catch (IOException e) {
+                    inFlight.release();
+                    job.record(sheet(entry, null), "Không đọc được entry trong file ZIP");
+                    continue;
+                }
+                sheetPool.execute(() -> {
+                    try {
+                        gradeSheet(job, entry, bytes, pending);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            // Chờ mọi phiếu đang xử lý xong rồi ghi phần còn lại
+            inFlight.acquire(maxInFlight);
+            flush(job, pending, true);
+            job.finish(null);
+        } catch (Exception e) {
+            job.finish(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            try {
+                Files.deleteIfExists(archive);
+            } catch (IOException ignored) {
+                // File tạm sẽ được hệ điều hành dọn sau
+            }
+        }
+    }
+
+    private void gradeSheet(Job job, ZipEntry entry, byte[] bytes, List<Graded> pending) {
+        Long studentId = studentIdOf(entry.getName());
+        OcrBatchJobResponse.Sheet sheet = sheet(entry, studentId);
+        if (studentId == null) {
+            job.record(sheet, "Tên file không chứa mã học sinh");
+            return;
+        }
+        if (bytes.length > MAX_SHEET_BYTES) {
+            job.record(sheet, "Ảnh quá lớn");
+            return;
+        }
+        try {
+            BufferedImage image = OmrSheetRecognizer.loadImage(new ByteArrayInputStream(bytes));
+            StudentResult result = examService.gradeSheetImage(job.examId, studentId, image);
+            sheet.score = result.getScore();
+            synchronized (pending) {
+                pending.add(new Graded(result, sheet));
+            }
+            flush(job, pending, false);
+        } catch (IOException | RuntimeException e) {
+            job.record(sheet, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    // Ghi một batch khi đủ SAVE_BATCH_SIZE (hoặc ghi hết khi force)
+    private void flush(Job job, List<Graded> pending, boolean force) {
+        List<Graded> batch;
+        synchronized (pending) {
+            if (pending.isEmpty() || (!force && pending.size() < SAVE_BATCH_SIZE)) {
+                return;
+            }
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        List<StudentResult> results = new ArrayList<>(batch.size());
+        batch.forEach(g -> results.add(g.result));
+        try {
+            batchWriter.insertAll(results);
+            for (StudentResult r : results) {
+                statisticsAggregator.record(r);
+            }
+            batch.forEach(g -> job.record(g.sheet, null));
+        } catch (RuntimeException e) {
+            batch.forEach(g -> job.record(g.sheet, "Lưu kết quả thất bại: " + e.getMessage()));
+        }
+    }
+
+    private static OcrBatchJobResponse.Sheet sheet(ZipEntry entry, Long studentId) {
+        OcrBatchJobResponse.Sheet sheet = new OcrBatchJobResponse.Sheet();
+        sheet.fileName = entry.getName();
+        sheet.studentId = studentId;
+        return sheet;
+    }
+
+    static Long studentIdOf(String entryName) {
+        String base = entryName.substring(entryName.lastIndexOf('/') + 1);
+        Matcher m = STUDENT_ID.matcher(base);
+        if (!m.find() || m.group(1).length() > 18) {
+            return null;
+        }
+        return Long.parseLong(m.group(1));
+    }
+
+    private static boolean isSheetImage(ZipEntry entry) {
+        String name = entry.getName().toLowerCase(Locale.ROOT);
+        if (entry.isDirectory() || name.startsWith("__macosx/") || name.contains("/.")) {
+            return false;
+        }
+        return name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg")
+                || name.endsWith(".bmp") || name.endsWith(".gif") || name.endsWith(".tif") || name.endsWith(".tiff");
+    }
+
+    // Chạy định kỳ và khi tra trạng thái: job đã xong không nằm mãi trong bộ nhớ khi server rảnh
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void removeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+        sheetPool.shutdownNow();
+    }
+
+    // Phiếu đã chấm, chờ ghi theo batch
+    private record Graded(StudentResult result, OcrBatchJobResponse.Sheet sheet) {
+    }
+
+    // Trạng thái một lượt chấm; phiếu chỉ được tính là xong sau khi kết quả đã ghi DB
+    private static final class Job {
+        final String id;
+        final Long examId;
+        final int totalSheets;
+        final AtomicInteger succeeded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final List<OcrBatchJobResponse.Sheet> sheets = Collections.synchronizedList(new ArrayList<>());
+        volatile String status = "RUNNING";
+        volatile String error;
+        volatile Instant finishedAt;
+
+        Job(String id, Long examId, int totalSheets) {
+            this.id = id;
+            this.examId = examId;
+            this.totalSheets = totalSheets;
+        }
+
+        void record(OcrBatchJobResponse.Sheet sheet, String error) {
+            sheet.error = error;
+            if (error == null) {
+                succeeded.incrementAndGet();
+            } else {
+                sheet.score = null;
+                failed.incrementAndGet();
+            }
+            sheets.add(sheet);
+        }
+
+        void finish(String error) {
+            this.error = error;
+            this.status = error == null ? "COMPLETED" : "FAILED";
+            this.finishedAt = Instant.now();
+        }
+
+        OcrBatchJobResponse snapshot() {
+            OcrBatchJobResponse res = new OcrBatchJobResponse();
+            res.jobId = id;
+            res.examId = examId;
+            res.status = status;
+            res.totalSheets = totalSheets;
+            res.succeeded = succeeded.get();
+            res.failed = failed.get();
+            res.processed = res.succeeded + res.failed;
+            res.error = error;
+            synchronized (sheets) {
+                res.sheets = new ArrayList<>(sheets);
+            }
+            return res;
+        }
+    }
+}
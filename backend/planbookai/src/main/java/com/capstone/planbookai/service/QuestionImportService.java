@@ -0,0 +1,284 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.ActivityEvent;
+import com.capstone.planbookai.dto.QuestionImportResult;
+import com.capstone.planbookai.entity.QuestionLevel;
+import com.capstone.planbookai.payload.request.QuestionRequest;
+import com.capstone.planbookai.repository.TopicRepository;
+import com.capstone.planbookai.service.importer.ImportRecord;
+import com.capstone.planbookai.service.importer.QuestionRecordReader;
+import com.capstone.planbookai.service.search.MinHashIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Import câu hỏi hàng loạt từ file CSV / JSON / Aiken.
+// Đọc file từng bản ghi, kiểm tra hợp lệ (chủ đề tra trong tập id nạp sẵn một lần, không truy vấn từng dòng),
+// ghi mỗi khúc CHUNK_SIZE câu bằng hai batch JDBC (câu hỏi rồi đáp án) trong một transaction riêng.
+// Dòng lỗi chỉ được báo lại, không làm dừng cả file; khúc nào lỗi khi ghi thì chỉ khúc đó bị bỏ.
+// Kết quả từng dòng được ghi ra response ngay sau mỗi khúc.
+@Service
+public class QuestionImportService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String INSERT_QUESTION_SQL =
+            "INSERT INTO questions (content, level, topic_id) VALUES (?, ?, ?)";
+    private static final String INSERT_ANSWER_SQL =
+            "INSERT INTO answers (code, content, is_correct, question_id) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TopicRepository topicRepository;
+    private final ObjectMapper objectMapper;
+    private final QuestionSamplingIndex samplingIndex;
+    private final QuestionSearchIndex searchIndex;
+    private final QuestionSimilarityIndex similarityIndex;
+    private final DashboardCounters dashboardCounters;
+    private final ActivityFeed activityFeed;
+
+    public QuestionImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            TopicRepository topicRepository,
+            ObjectMapper objectMapper,
+            QuestionSamplingIndex samplingIndex,
+            QuestionSearchIndex searchIndex,
+            QuestionSimilarityIndex similarityIndex,
+            DashboardCounters dashboardCounters,
+            ActivityFeed activityFeed
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.topicRepository = topicRepository;
+        this.objectMapper = objectMapper;
+        this.samplingIndex = samplingIndex;
+        this.searchIndex = searchIndex;
+        this.similarityIndex = similarityIndex;
+        this.dashboardCounters = dashboardCounters;
+        this.activityFeed = activityFeed;
+    }
+
+    // Câu hỏi hợp lệ đang chờ ghi trong khúc hiện tại
+    private static final class Row {
+        final QuestionImportResult result = new QuestionImportResult();
+        QuestionRequest question;
+        List<String> texts;
+    }
+
+    // defaultTopicId/defaultLevel dùng cho dòng không ghi chủ đề/mức độ (bắt buộc với Aiken).
+    // allowDuplicates = false: bỏ qua câu gần trùng câu đã có trong ngân hàng hoặc câu trước đó trong cùng file.
+    public void importQuestions(InputStream in, QuestionRecordReader.Format format, Long defaultTopicId,
+                                QuestionLevel defaultLevel, boolean allowDuplicates, OutputStream out) throws IOException {
+        Set<Long> topicIds = new HashSet<>(topicRepository.findAllIds());
+        if (defaultTopicId != null && !topicIds.contains(defaultTopicId)) {
+            throw new IllegalArgumentException("Không tìm thấy chủ đề: " + defaultTopicId);
+        }
+
+        // Mở reader trước khi ghi response: lỗi định dạng đầu file vẫn trả được 400
+        try (QuestionRecordReader reader = QuestionRecordReader.open(format, in, objectMapper)) {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.writeStartArray();
+
+            MinHashIndex fileIndex = new MinHashIndex();
+            float threshold = similarityIndex.getDuplicateThreshold();
+            List<Row> segment = new ArrayList<>(CHUNK_SIZE);
+            int lastRow = 0;
+            while (true) {
+                ImportRecord record;
+                try {
+                    record = reader.next();
+                } catch (IOException e) {
+                    // Hỏng cấu trúc file (VD: JSON sai cú pháp) - không đọc tiếp được, ghi nốt phần đã đọc
+                    Row fatal = new Row();
+                    fatal.result.row = lastRow + 1;
+                    fatal.result.error = "File bị lỗi từ đây, dừng import: " + e.getMessage();
+                    segment.add(fatal);
+                    break;
+                }
+                if (record == null) {
+                    break;
+                }
+                lastRow = record.row;
+
+                Row row = new Row();
+                row.result.row = record.row;
+                row.result.error = record.error != null
+                        ? record.error
+                        : validate(record.question, defaultTopicId, defaultLevel, topicIds);
+                if (row.result.error == null) {
+                    row.question = record.question;
+                    row.texts = texts(record.question);
+                    char[] signature = QuestionSimilarityIndex.signature(row.texts);
+                    if (!allowDuplicates) {
+                        row.result.error = duplicateError(signature, threshold, fileIndex);
+                    }
+                    if (row.result.error == null) {
+                        fileIndex.put(record.row, signature);
+                    }
+                }
+                segment.add(row);
+                if (segment.size() == CHUNK_SIZE) {
+                    flush(segment, generator);
+                    segment.clear();
+                }
+            }
+            flush(segment, generator);
+
+            generator.writeEndArray();
+            generator.flush();
+        }
+    }
+
+    // Ghi các dòng hợp lệ của khúc trong một transaction, rồi ghi kết quả của cả khúc ra response theo thứ tự
+    private void flush(List<Row> segment, JsonGenerator generator) throws IOException {
+        List<Row> valid = segment.stream().filter(r -> r.result.error == null).collect(Collectors.toList());
+        if (!valid.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertChunk(valid));
+            } catch (RuntimeException e) {
+                for (Row row : valid) {
+                    row.result.questionId = null;
+                    row.result.error = "Không lưu được: " + e.getMessage();
+                }
+            }
+        }
+        for (Row row : segment) {
+            objectMapper.writeValue(generator, row.result);
+        }
+        generator.flush();
+    }
+
+    private void insertChunk(List<Row> rows) {
+        long[] ids = jdbcTemplate.execute((ConnectionCallback<long[]>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_QUESTION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Row row : rows) {
+                    ps.setString(1, row.question.getContent());
+                    ps.setString(2, row.question.getLevel().name());
+                    ps.setLong(3, row.question.getTopicId());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                long[] keys = new long[rows.size()];
+                int n = 0;
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    while (rs.next() && n < keys.length) {
+                        keys[n++] = rs.getLong(1);
+                    }
+                }
+                if (n != keys.length) {
+                    throw new IllegalStateException("Số id sinh ra không khớp số câu hỏi đã ghi");
+                }
+                return keys;
+            }
+        });
+
+        List<Object[]> answers = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            row.result.questionId = ids[i];
+            for (QuestionRequest.AnswerDTO a : row.question.getAnswers()) {
+                answers.add(new Object[]{a.getCode(), a.getContent(), Boolean.TRUE.equals(a.getIsCorrect()), ids[i]});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ANSWER_SQL, answers);
+        dashboardCounters.questionsChanged(rows.size());
+        // Một sự kiện cho cả khúc, không làm tràn danh sách hoạt động gần đây
+        activityFeed.publishAfterCommit(ActivityEvent.Type.QUESTION, ids[0],
+                "Câu hỏi được import từ file", rows.size() + " câu hỏi mới", "Mới thêm");
+
+        // Các chỉ mục trong bộ nhớ chỉ thấy câu hỏi sau khi khúc đã commit
+        AfterCommit.run(() -> {
+            for (Row row : rows) {
+                Long id = row.result.questionId;
+                QuestionRequest q = row.question;
+                samplingIndex.put(id, q.getTopicId(), q.getLevel());
+                searchIndex.put(id, q.getTopicId(), q.getLevel(), row.texts);
+                similarityIndex.put(id, row.texts);
+            }
+        });
+    }
+
+    // Áp giá trị mặc định, chuẩn hóa mã đáp án; trả về thông báo lỗi hoặc null nếu hợp lệ
+    private static String validate(QuestionRequest q, Long defaultTopicId, QuestionLevel defaultLevel, Set<Long> topicIds) {
+        if (q.getContent() == null || q.getContent().isBlank()) {
+            return "Thiếu nội dung câu hỏi";
+        }
+        if (q.getTopicId() == null) {
+            q.setTopicId(defaultTopicId);
+        }
+        if (q.getTopicId() == null) {
+            return "Thiếu topicId";
+        }
+        if (!topicIds.contains(q.getTopicId())) {
+            return "Không tìm thấy chủ đề: " + q.getTopicId();
+        }
+        if (q.getLevel() == null) {
+            q.setLevel(defaultLevel);
+        }
+        if (q.getLevel() == null) {
+            return "Thiếu level";
+        }
+
+        List<QuestionRequest.AnswerDTO> answers = q.getAnswers();
+        if (answers == null || answers.size() < 2) {
+            return "Cần ít nhất 2 phương án";
+        }
+        Set<String> codes = new HashSet<>();
+        boolean hasCorrect = false;
+        for (int k = 0; k < answers.size(); k++) {
+            QuestionRequest.AnswerDTO a = answers.get(k);
+            if (a.getContent() == null || a.getContent().isBlank()) {
+                return "Phương án thứ " + (k + 1) + " không có nội dung";
+            }
+            String code = a.getCode() == null || a.getCode().isBlank()
+                    ? ExamAnswerKey.codeOf(k) : a.getCode().trim().toUpperCase(Locale.ROOT);
+            if (code == null || code.length() > 5 || !codes.add(code)) {
+                return "Mã phương án không hợp lệ hoặc bị trùng: " + a.getCode();
+            }
+            a.setCode(code);
+            hasCorrect |= Boolean.TRUE.equals(a.getIsCorrect());
+        }
+        if (!hasCorrect) {
+            return "Không có phương án đúng";
+        }
+        return null;
+    }
+
+    private String duplicateError(char[] signature, float threshold, MinHashIndex fileIndex) {
+        List<MinHashIndex.Match> inBank = similarityIndex.findSimilar(signature, threshold, 5);
+        if (!inBank.isEmpty()) {
+            return "Gần trùng câu hỏi đã có: " + inBank.stream()
+                    .map(m -> String.valueOf(m.id)).collect(Collectors.joining(", "));
+        }
+        List<MinHashIndex.Match> inFile = fileIndex.findSimilar(signature, threshold, 1, -1);
+        if (!inFile.isEmpty()) {
+            return "Gần trùng câu ở dòng " + inFile.get(0).id + " trong file";
+        }
+        return null;
+    }
+
+    private static List<String> texts(QuestionRequest q) {
+        List<String> texts = new ArrayList<>();
+        texts.add(q.getContent());
+        q.getAnswers().forEach(a -> texts.add(a.getContent()));
+        return texts;
+    }
+}
@@ -0,0 +1,168 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.entity.QuestionLevel;
+import com.capstone.planbookai.repository.QuestionRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Chỉ mục ID câu hỏi trong bộ nhớ theo (topicId, level).
+// Thay cho "ORDER BY RAND() LIMIT k": lấy mẫu k ID không lặp trong O(k)
+// bằng Fisher-Yates từng phần trên mảng ID của từng nhóm.
+@Component
+public class QuestionSamplingIndex {
+
+    private final QuestionRepository questionRepository;
+    private final SwappableIndex<Groups> index = new SwappableIndex<>(new Groups());
+
+    public QuestionSamplingIndex(QuestionRepository questionRepository) {
+        this.questionRepository = questionRepository;
+    }
+
+    // Nạp toàn bộ chỉ mục khi ứng dụng khởi động xong (sau DataSeeder).
+    // Dựng bản mới rồi thay một lần: generateExam không bao giờ thấy chỉ mục rỗng,
+    // và put/remove đến trong lúc đọc DB được áp lại lên bản mới.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Groups fresh = new Groups();
+        index.beginRebuild();
+        try {
+            for (Object[] row : questionRepository.findSamplingKeys()) {
+                fresh.put((Long) row[0], new Key((Long) row[1], (QuestionLevel) row[2]));
+            }
+        } catch (RuntimeException e) {
+            index.abortRebuild();
+            throw e;
+        }
+        index.finishRebuild(fresh);
+    }
+
+    // Thêm mới hoặc chuyển câu hỏi sang nhóm (topic, level) khác; thiếu topic/level thì gỡ khỏi chỉ mục
+    public void put(Long questionId, Long topicId, QuestionLevel level) {
+        if (questionId == null) {
+            return;
+        }
+        if (topicId == null || level == null) {
+            remove(questionId);
+            return;
+        }
+        Key key = new Key(topicId, level);
+        index.update(groups -> groups.put(questionId, key));
+    }
+
+    public void remove(Long questionId) {
+        if (questionId != null) {
+            index.update(groups -> groups.remove(questionId));
+        }
+    }
+
+    // Lấy ngẫu nhiên tối đa k ID (không lặp) trong nhóm (topic, level)
+    public List<Long> sample(Long topicId, QuestionLevel level, int k) {
+        Bucket bucket = index.get().buckets.get(new Key(topicId, level));
+        if (bucket == null || k <= 0) {
+            return new ArrayList<>();
+        }
+        return bucket.sample(k);
+    }
+
+    public int size(Long topicId, QuestionLevel level) {
+        Bucket bucket = index.get().buckets.get(new Key(topicId, level));
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    // Một bản chỉ mục: nhóm theo (topic, level) và nhóm hiện tại của từng câu hỏi
+    private static final class Groups {
+        final Map<Key, Bucket> buckets = new ConcurrentHashMap<>();
+        final Map<Long, Key> keyById = new ConcurrentHashMap<>();
+
+        void put(Long questionId, Key key) {
+            Key previous = keyById.put(questionId, key);
+            if (key.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                Bucket old = buckets.get(previous);
+                if (old != null) {
+                    old.remove(questionId);
+                }
+            }
+            buckets.computeIfAbsent(key, k -> new Bucket()).add(questionId);
+        }
+
+        void remove(Long questionId) {
+            Key previous = keyById.remove(questionId);
+            if (previous != null) {
+                Bucket bucket = buckets.get(previous);
+                if (bucket != null) {
+                    bucket.remove(questionId);
+                }
+            }
+        }
+    }
+
+    private record Key(Long topicId, QuestionLevel level) {
+    }
+
+    // Mảng ID kèm vị trí của từng ID để xóa O(1) (đổi chỗ với phần tử cuối)
+    private static final class Bucket {
+        private long[] ids = new long[16];
+        private int size;
+        private final Map<Long, Integer> positions = new HashMap<>();
+
+        synchronized void add(long id) {
+            if (positions.containsKey(id)) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size] = id;
+            positions.put(id, size);
+            size++;
+        }
+
+        synchronized void remove(long id) {
+            Integer pos = positions.remove(id);
+            if (pos == null) {
+                return;
+            }
+            int last = --size;
+            if (pos != last) {
+                ids[pos] = ids[last];
+                positions.put(ids[pos], pos);
+            }
+        }
+
+        // Fisher-Yates từng phần: chỉ k lần đổi chỗ, thứ tự trong mảng không quan trọng
+        synchronized List<Long> sample(int k) {
+            int n = Math.min(k, size);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<Long> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int j = i + random.nextInt(size - i);
+                swap(i, j);
+                result.add(ids[i]);
+            }
+            return result;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void swap(int i, int j) {
+            if (i == j) {
+                return;
+            }
+            long tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+            positions.put(ids[i], i);
+            positions.put(ids[j], j);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.entity.QuestionLevel;
+import com.capstone.planbookai.service.search.HtmlText;
+import com.capstone.planbookai.service.search.InvertedIndex;
+import com.capstone.planbookai.service.search.VietnameseTokenizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+// Chỉ mục tìm kiếm toàn văn trên nội dung câu hỏi + nội dung đáp án (bỏ dấu tiếng Việt, xếp hạng BM25).
+// Nạp khi khởi động bằng một câu JOIN đọc streaming; QuestionService cập nhật sau mỗi lần thêm/sửa/xóa.
+@Component
+public class QuestionSearchIndex {
+
+    // Câu hỏi và đáp án liền nhau theo id câu hỏi để dựng từng tài liệu khi đọc
+    private static final String LOAD_SQL =
+            "SELECT q.id, q.topic_id, q.level, q.content, a.content FROM questions q " +
+            "LEFT JOIN answers a ON a.question_id = q.id ORDER BY q.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SwappableIndex<InvertedIndex> index = new SwappableIndex<>(new InvertedIndex());
+
+    public QuestionSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        InvertedIndex fresh = new InvertedIndex();
+        PendingDoc pending = new PendingDoc();
+        index.beginRebuild();
+        try {
+            load(fresh, pending);
+        } catch (RuntimeException e) {
+            index.abortRebuild();
+            throw e;
+        }
+        index.finishRebuild(fresh);
+    }
+
+    private void load(InvertedIndex fresh, PendingDoc pending) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, rs -> {
+            long id = rs.getLong(1);
+            if (pending.id != id) {
+                pending.flushTo(fresh);
+                pending.id = id;
+                long topicId = rs.getLong(2);
+                pending.topicId = rs.wasNull() ? null : topicId;
+                String level = rs.getString(3);
+                pending.level = level != null ? QuestionLevel.valueOf(level) : null;
+                pending.texts.add(rs.getString(4));
+            }
+            pending.texts.add(rs.getString(5));
+        });
+        pending.flushTo(fresh);
+    }
+
+    // Câu hỏi không có chủ đề không được đánh chỉ mục (giống khi dựng lại): gỡ bản cũ nếu có
+    public void put(Long questionId, Long topicId, QuestionLevel level, List<String> texts) {
+        if (questionId == null) {
+            return;
+        }
+        if (topicId == null) {
+            remove(questionId);
+            return;
+        }
+        List<String> tokens = tokenize(texts);
+        index.update(idx -> idx.put(questionId, topicId, levelCode(level), tokens));
+    }
+
+    public void remove(Long questionId) {
+        if (questionId != null) {
+            index.update(idx -> idx.remove(questionId));
+        }
+    }
+
+    public InvertedIndex.Result search(String query, Long topicId, QuestionLevel level, int limit) {
+        return index.get().search(VietnameseTokenizer.tokenize(query), topicId, levelCode(level), limit);
+    }
+
+    public int size() {
+        return index.get().size();
+    }
+
+    private static int levelCode(QuestionLevel level) {
+        return level == null ? InvertedIndex.ANY_LEVEL : level.ordinal();
+    }
+
+    // Dùng chung cho lần dựng lại và cập nhật từng câu: bỏ HTML rồi mới tách từ
+    private static List<String> tokenize(List<String> texts) {
+        List<String> tokens = new ArrayList<>();
+        for (String text : texts) {
+            tokens.addAll(VietnameseTokenizer.tokenize(HtmlText.strip(text)));
+        }
+        return tokens;
+    }
+
+    // Câu hỏi đang được gom đáp án trong lúc đọc kết quả JOIN
+    private static final class PendingDoc {
+        long id = -1;
+        Long topicId;
+        QuestionLevel level;
+        final List<String> texts = new ArrayList<>();
+
+        void flushTo(InvertedIndex target) {
+            if (id >= 0 && topicId != null) {
+                target.put(id, topicId, levelCode(level), tokenize(texts));
+            }
+            texts.clear();
+        }
+    }
+}
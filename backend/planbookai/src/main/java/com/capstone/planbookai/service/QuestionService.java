@@ -1,13 +1,37 @@
 package com.capstone.planbookai.service;
 
+import com.capstone.planbookai.dto.ActivityEvent;
+import com.capstone.planbookai.dto.CursorPage;
+import com.capstone.planbookai.dto.QuestionSearchResponse;
+import com.capstone.planbookai.dto.SimilarQuestionResponse;
 import com.capstone.planbookai.entity.Question;
 import com.capstone.planbookai.entity.Answer;
+import com.capstone.planbookai.entity.Exam;
+import com.capstone.planbookai.entity.QuestionLevel;
+import com.capstone.planbookai.entity.Topic;
+import com.capstone.planbookai.payload.request.QuestionRequest;
+import com.capstone.planbookai.payload.request.QuestionUpdateRequest;
 import com.capstone.planbookai.repository.QuestionRepository;
+import com.capstone.planbookai.repository.TopicRepository;
+import com.capstone.planbookai.service.search.InvertedIndex;
+import com.capstone.planbookai.service.search.MinHashIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class QuestionService {
@@ -18,13 +42,106 @@ public class QuestionService {
   @Autowired
   private com.capstone.planbookai.repository.ExamQuestionRepository examQuestionRepository;
 
+  @Autowired
+  private QuestionSamplingIndex samplingIndex;
+
+  @Autowired
+  private QuestionSearchIndex searchIndex;
+
+  @Autowired
+  private QuestionSimilarityIndex similarityIndex;
+
+  @Autowired
+  private com.capstone.planbookai.repository.ExamRepository examRepository;
+
+  @Autowired
+  private TopicRepository topicRepository;
+
+  @Autowired
+  private ExamSnapshotCache examSnapshotCache;
+
+  @Autowired
+  private DashboardCounters dashboardCounters;
+
+  @Autowired
+  private ActivityFeed activityFeed;
+
+  @Autowired
+  private AnswerKeyCache answerKeyCache;
+
   // Hàm lấy tất cả câu hỏi
   public List<Question> getAllQuestions() {
     return questionRepository.findAll();
   }
 
+  // Phân trang theo khóa (keyset), lọc tùy chọn theo chủ đề và mức độ
+  public CursorPage<Question> getQuestionsPage(Long cursor, Integer size, Long topicId, QuestionLevel level) {
+    int limit = CursorPage.clampSize(size);
+    List<Question> rows = questionRepository.findPage(
+        CursorPage.startCursor(cursor), topicId, level, PageRequest.of(0, limit + 1));
+    return CursorPage.of(rows, limit, Question::getId);
+  }
+
+  // Tìm kiếm toàn văn (không phân biệt dấu) trên nội dung câu hỏi và đáp án, xếp theo độ liên quan
+  public QuestionSearchResponse searchQuestions(String query, Long topicId, QuestionLevel level, Integer limit) {
+    QuestionSearchResponse res = new QuestionSearchResponse();
+    res.query = query;
+    res.items = new ArrayList<>();
+    if (query == null || query.isBlank()) {
+      return res;
+    }
+
+    InvertedIndex.Result result = searchIndex.search(query, topicId, level, CursorPage.clampSize(limit));
+    res.totalMatches = result.totalMatches;
+
+    List<Long> ids = new ArrayList<>(result.hits.size());
+    result.hits.forEach(hit -> ids.add(hit.id));
+    Map<Long, Question> byId = new HashMap<>();
+    questionRepository.findAllById(ids).forEach(q -> byId.put(q.getId(), q));
+    for (InvertedIndex.Hit hit : result.hits) {
+      Question q = byId.get(hit.id);
+      if (q != null) {
+        QuestionSearchResponse.Item item = new QuestionSearchResponse.Item();
+        item.score = hit.score;
+        item.question = q;
+        res.items.add(item);
+      }
+    }
+    return res;
+  }
+
+  // Câu hỏi gần giống một câu đã có; minSimilarity mặc định = ngưỡng coi là trùng
+  public SimilarQuestionResponse findSimilarQuestions(Long id, Float minSimilarity, Integer limit) {
+    getQuestionById(id);
+    float threshold = minSimilarity != null ? minSimilarity : similarityIndex.getDuplicateThreshold();
+    SimilarQuestionResponse res = toSimilarResponse(
+        similarityIndex.findSimilarTo(id, threshold, CursorPage.clampSize(limit)), threshold);
+    res.questionId = id;
+    return res;
+  }
+
+  // Câu hỏi đã có gần trùng với nội dung chưa lưu (câu đang soạn, câu do AI sinh)
+  public SimilarQuestionResponse findDuplicatesOf(String content, List<String> answerTexts) {
+    List<String> texts = new ArrayList<>();
+    texts.add(content);
+    texts.addAll(answerTexts);
+    float threshold = similarityIndex.getDuplicateThreshold();
+    return toSimilarResponse(similarityIndex.findSimilar(texts, threshold, CursorPage.clampSize(null)), threshold);
+  }
+
+  // allowDuplicate = false: từ chối câu gần trùng câu đã có (DuplicateQuestionException)
   @Transactional
-  public Question createQuestion(Question question) {
+  public Question createQuestion(Question question, boolean allowDuplicate) {
+    if (!allowDuplicate) {
+      List<String> answerTexts = new ArrayList<>();
+      if (question.getAnswers() != null) {
+        question.getAnswers().forEach(a -> answerTexts.add(a.getContent()));
+      }
+      SimilarQuestionResponse duplicates = findDuplicatesOf(question.getContent(), answerTexts);
+      if (!duplicates.items.isEmpty()) {
+        throw new DuplicateQuestionException(duplicates);
+      }
+    }
 
     List<Answer> answers = question.getAnswers();
     if (answers != null && !answers.isEmpty()) {
@@ -33,7 +150,12 @@ public class QuestionService {
       }
     }
 
-    return questionRepository.save(question);
+    Question saved = questionRepository.save(question);
+    indexAfterCommit(saved);
+    dashboardCounters.questionsChanged(1);
+    activityFeed.publishAfterCommit(ActivityEvent.Type.QUESTION, saved.getId(),
+        "Câu hỏi mới được thêm", ActivityFeed.summarize(saved.getContent()), "Mới thêm");
+    return saved;
   }
 
   // 3. API Xem chi tiết: Tìm câu hỏi theo ID
@@ -42,36 +164,233 @@ public class QuestionService {
         .orElseThrow(() -> new RuntimeException("Không tìm thấy câu hỏi có ID: " + id));
   }
 
-  // 4. API Cập nhật
+  // 4. API Cập nhật: đáp án được đối chiếu với đáp án hiện có (xem mergeAnswers), không xóa đi tạo lại
   @Transactional
   public Question updateQuestion(Long id, Question newData) {
     Question existingQuestion = getQuestionById(id);
 
-    existingQuestion.setContent(newData.getContent());
-    existingQuestion.setLevel(newData.getLevel());
-    existingQuestion.setTopic(newData.getTopic());
+    boolean changed = applyChanges(existingQuestion, newData.getContent(), newData.getLevel(), newData.getTopic(),
+        newData.getAnswers() != null ? newData.getAnswers() : new ArrayList<>());
 
-    existingQuestion.getAnswers().clear();
+    if (changed) {
+      indexAfterCommit(existingQuestion);
+      invalidateExamsAfterCommit(List.of(id));
+    }
+    return existingQuestion;
+  }
 
-    if (newData.getAnswers() != null) {
-      for (Answer answer : newData.getAnswers()) {
-        answer.setQuestion(existingQuestion); // Gắn lại cha cho con mới
-        existingQuestion.getAnswers().add(answer);
+  // Sửa hàng loạt trong một transaction: nạp toàn bộ câu hỏi và chủ đề liên quan bằng vài câu IN,
+  // các UPDATE/DELETE được Hibernate gom batch khi flush. Một câu lỗi -> cả lô rollback.
+  @Transactional
+  public List<Question> updateQuestions(List<QuestionUpdateRequest> edits) {
+    Set<Long> ids = new LinkedHashSet<>();
+    Set<Long> topicIds = new HashSet<>();
+    for (QuestionUpdateRequest edit : edits) {
+      if (edit.getId() == null || !ids.add(edit.getId())) {
+        throw new IllegalArgumentException("Thiếu id hoặc id bị lặp: " + edit.getId());
+      }
+      if (edit.getTopicId() != null) {
+        topicIds.add(edit.getTopicId());
       }
     }
 
-    return questionRepository.save(existingQuestion);
+    Map<Long, Question> questions = new HashMap<>();
+    questionRepository.findAllById(ids).forEach(q -> questions.put(q.getId(), q));
+    Map<Long, Topic> topics = new HashMap<>();
+    topicRepository.findAllById(topicIds).forEach(t -> topics.put(t.getId(), t));
+
+    List<Question> updated = new ArrayList<>(edits.size());
+    List<Long> changedIds = new ArrayList<>();
+    for (QuestionUpdateRequest edit : edits) {
+      Question question = questions.get(edit.getId());
+      if (question == null) {
+        throw new IllegalArgumentException("Không tìm thấy câu hỏi có ID: " + edit.getId());
+      }
+      Topic topic = null;
+      if (edit.getTopicId() != null) {
+        topic = topics.get(edit.getTopicId());
+        if (topic == null) {
+          throw new IllegalArgumentException("Không tìm thấy chủ đề: " + edit.getTopicId());
+        }
+      }
+      List<Answer> answers = null;
+      if (edit.getAnswers() != null) {
+        answers = new ArrayList<>();
+        for (QuestionRequest.AnswerDTO dto : edit.getAnswers()) {
+          Answer answer = new Answer();
+          answer.setId(dto.getId());
+          answer.setCode(dto.getCode());
+          answer.setContent(dto.getContent());
+          answer.setIsCorrect(dto.getIsCorrect());
+          answers.add(answer);
+        }
+      }
+      if (applyChanges(question, edit.getContent(), edit.getLevel(), topic, answers)) {
+        indexAfterCommit(question);
+        changedIds.add(question.getId());
+      }
+      updated.add(question);
+    }
+    if (!changedIds.isEmpty()) {
+      invalidateExamsAfterCommit(changedIds);
+    }
+    return updated;
   }
 
   // 5. API Xóa câu hỏi
   @Transactional
   public void deleteQuestion(Long id) {
     if (questionRepository.existsById(id)) {
+      // Lấy các đề chứa câu hỏi trước khi xóa liên kết
+      invalidateExamsAfterCommit(List.of(id));
       // Cascade delete manually for ExamQuestion
       examQuestionRepository.deleteByQuestionId(id);
       questionRepository.deleteById(id);
+      dashboardCounters.questionsChanged(-1);
+      AfterCommit.run(() -> {
+        samplingIndex.remove(id);
+        searchIndex.remove(id);
+        similarityIndex.remove(id);
+      });
     } else {
       throw new RuntimeException("Không tìm thấy câu hỏi để xóa với ID: " + id);
     }
   }
+
+  // Gán các trường khác null và khác giá trị hiện tại; trả về true nếu câu hỏi thực sự thay đổi
+  private boolean applyChanges(Question question, String content, QuestionLevel level, Topic topic, List<Answer> answers) {
+    boolean changed = false;
+    if (content != null && !content.equals(question.getContent())) {
+      question.setContent(content);
+      changed = true;
+    }
+    if (level != null && level != question.getLevel()) {
+      question.setLevel(level);
+      changed = true;
+    }
+    if (topic != null && (question.getTopic() == null || !topic.getId().equals(question.getTopic().getId()))) {
+      question.setTopic(topic);
+      changed = true;
+    }
+    if (answers != null) {
+      changed |= mergeAnswers(question, answers);
+    }
+    return changed;
+  }
+
+  // Đối chiếu đáp án gửi lên với đáp án hiện có: khớp theo id trước, sau đó theo mã (A, B, ...).
+  // Đáp án khớp chỉ bị sửa ở trường khác nhau (giữ nguyên id); chỉ đáp án thừa bị xóa, đáp án mới được thêm.
+  // So khớp theo tham chiếu (IdentityHashMap) vì equals/hashCode của Lombok trên Answer duyệt cả Question.
+  private boolean mergeAnswers(Question question, List<Answer> incoming) {
+    List<Answer> current = question.getAnswers();
+    Map<Long, Answer> byId = new HashMap<>();
+    Map<String, Answer> byCode = new HashMap<>();
+    for (Answer a : current) {
+      byId.put(a.getId(), a);
+      byCode.putIfAbsent(normalizeCode(a.getCode()), a);
+    }
+
+    Set<Answer> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+    Answer[] targets = new Answer[incoming.size()];
+    for (int i = 0; i < targets.length; i++) {
+      Long answerId = incoming.get(i).getId();
+      Answer existing = answerId != null ? byId.get(answerId) : null;
+      if (existing != null && matched.add(existing)) {
+        targets[i] = existing;
+      }
+    }
+    for (int i = 0; i < targets.length; i++) {
+      if (targets[i] == null) {
+        Answer existing = byCode.get(normalizeCode(incoming.get(i).getCode()));
+        if (existing != null && matched.add(existing)) {
+          targets[i] = existing;
+        }
+      }
+    }
+
+    boolean changed = false;
+    List<Answer> added = new ArrayList<>();
+    for (int i = 0; i < targets.length; i++) {
+      Answer in = incoming.get(i);
+      Answer target = targets[i];
+      if (target == null) {
+        Answer answer = new Answer();
+        answer.setCode(in.getCode());
+        answer.setContent(in.getContent());
+        answer.setIsCorrect(in.getIsCorrect());
+        answer.setQuestion(question);
+        added.add(answer);
+        continue;
+      }
+      if (!Objects.equals(target.getCode(), in.getCode())) {
+        target.setCode(in.getCode());
+        changed = true;
+      }
+      if (!Objects.equals(target.getContent(), in.getContent())) {
+        target.setContent(in.getContent());
+        changed = true;
+      }
+      if (!Objects.equals(target.getIsCorrect(), in.getIsCorrect())) {
+        target.setIsCorrect(in.getIsCorrect());
+        changed = true;
+      }
+    }
+    // orphanRemoval xóa các đáp án không còn được gửi lên
+    changed |= current.removeIf(a -> !matched.contains(a));
+    changed |= current.addAll(added);
+    return changed;
+  }
+
+  private static String normalizeCode(String code) {
+    return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+  }
+
+  // Cập nhật chỉ mục lấy mẫu, tìm kiếm và câu gần trùng sau khi commit (tránh lộ câu hỏi bị rollback)
+  private void indexAfterCommit(Question question) {
+    Long id = question.getId();
+    Long topicId = question.getTopic() != null ? question.getTopic().getId() : null;
+    QuestionLevel level = question.getLevel();
+    // Lấy nội dung ngay trong transaction, không chạm vào entity sau khi commit
+    List<String> texts = new ArrayList<>();
+    texts.add(question.getContent());
+    if (question.getAnswers() != null) {
+      question.getAnswers().forEach(a -> texts.add(a.getContent()));
+    }
+    AfterCommit.run(() -> {
+      samplingIndex.put(id, topicId, level);
+      searchIndex.put(id, topicId, level, texts);
+      similarityIndex.put(id, texts);
+    });
+  }
+
+  private SimilarQuestionResponse toSimilarResponse(List<MinHashIndex.Match> matches, float threshold) {
+    SimilarQuestionResponse res = new SimilarQuestionResponse();
+    res.minSimilarity = threshold;
+    res.items = new ArrayList<>();
+    List<Long> ids = new ArrayList<>(matches.size());
+    matches.forEach(m -> ids.add(m.id));
+    Map<Long, Question> byId = new HashMap<>();
+    questionRepository.findAllById(ids).forEach(q -> byId.put(q.getId(), q));
+    for (MinHashIndex.Match m : matches) {
+      Question q = byId.get(m.id);
+      if (q != null) {
+        SimilarQuestionResponse.Item item = new SimilarQuestionResponse.Item();
+        item.similarity = m.similarity;
+        item.question = q;
+        res.items.add(item);
+      }
+    }
+    return res;
+  }
+
+  // Nội dung các đề chứa câu hỏi đã thay đổi -> xóa bản đề dựng sẵn và đáp án trong cache
+  private void invalidateExamsAfterCommit(Collection<Long> questionIds) {
+    List<Exam> exams = examRepository.findExamsContainingQuestions(questionIds);
+    if (!exams.isEmpty()) {
+      AfterCommit.run(() -> exams.forEach(exam -> {
+        examSnapshotCache.invalidate(exam.getExamCode());
+        answerKeyCache.invalidate(exam.getId());
+      }));
+    }
+  }
 }
@@ -0,0 +1,119 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.service.search.HtmlText;
+import com.capstone.planbookai.service.search.MinHashIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+// Chỉ mục câu hỏi gần trùng (MinHash + LSH) trên nội dung câu hỏi + nội dung đáp án.
+// Nạp khi khởi động bằng một câu JOIN đọc streaming; QuestionService cập nhật sau mỗi lần thêm/sửa/xóa.
+@Component
+public class QuestionSimilarityIndex {
+
+    private static final String LOAD_SQL =
+            "SELECT q.id, q.content, a.content FROM questions q " +
+            "LEFT JOIN answers a ON a.question_id = q.id ORDER BY q.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final float duplicateThreshold;
+    private final SwappableIndex<MinHashIndex> index = new SwappableIndex<>(new MinHashIndex());
+
+    public QuestionSimilarityIndex(
+            JdbcTemplate jdbcTemplate,
+            @Value("${planbookai.questions.duplicate-threshold:0.6}") float duplicateThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.duplicateThreshold = duplicateThreshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        MinHashIndex fresh = new MinHashIndex();
+        index.beginRebuild();
+        try {
+            load(fresh);
+        } catch (RuntimeException e) {
+            index.abortRebuild();
+            throw e;
+        }
+        // Câu hỏi được thêm/sửa/xóa trong lúc đọc được áp lại lên bản mới trước khi thay
+        index.finishRebuild(fresh);
+    }
+
+    private void load(MinHashIndex fresh) {
+        long[] currentId = {-1};
+        List<String> texts = new ArrayList<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            return ps;
+        }, rs -> {
+            long id = rs.getLong(1);
+            if (currentId[0] != id) {
+                if (currentId[0] >= 0) {
+                    fresh.put(currentId[0], signature(texts));
+                }
+                texts.clear();
+                currentId[0] = id;
+                texts.add(rs.getString(2));
+            }
+            texts.add(rs.getString(3));
+        });
+        if (currentId[0] >= 0) {
+            fresh.put(currentId[0], signature(texts));
+        }
+    }
+
+    public float getDuplicateThreshold() {
+        return duplicateThreshold;
+    }
+
+    public void put(Long questionId, List<String> texts) {
+        if (questionId != null) {
+            char[] signature = signature(texts);
+            index.update(idx -> idx.put(questionId, signature));
+        }
+    }
+
+    public void remove(Long questionId) {
+        if (questionId != null) {
+            index.update(idx -> idx.remove(questionId));
+        }
+    }
+
+    // Câu hỏi gần giống một văn bản chưa lưu (câu đang tạo, câu do AI sinh)
+    public List<MinHashIndex.Match> findSimilar(List<String> texts, float minSimilarity, int limit) {
+        return findSimilar(signature(texts), minSimilarity, limit);
+    }
+
+    public List<MinHashIndex.Match> findSimilar(char[] signature, float minSimilarity, int limit) {
+        return index.get().findSimilar(signature, minSimilarity, limit, -1);
+    }
+
+    // Câu hỏi gần giống một câu đã có trong ngân hàng (không tính chính nó)
+    public List<MinHashIndex.Match> findSimilarTo(Long questionId, float minSimilarity, int limit) {
+        MinHashIndex current = index.get();
+        return current.findSimilar(current.signatureOf(questionId), minSimilarity, limit, questionId);
+    }
+
+    public int size() {
+        return index.get().size();
+    }
+
+    public static char[] signature(List<String> texts) {
+        List<String> plain = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            if (text != null) {
+                plain.add(HtmlText.strip(text));
+            }
+        }
+        return MinHashIndex.signature(plain);
+    }
+}
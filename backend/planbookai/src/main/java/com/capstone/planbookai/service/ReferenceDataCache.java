@@ -0,0 +1,218 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.entity.Grade;
+import com.capstone.planbookai.entity.Subject;
+import com.capstone.planbookai.entity.Topic;
+import com.capstone.planbookai.repository.GradeRepository;
+import com.capstone.planbookai.repository.SubjectRepository;
+import com.capstone.planbookai.repository.TopicRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ảnh chụp trong bộ nhớ của dữ liệu danh mục (môn học -> khối lớp -> chủ đề), lưu sẵn dạng JSON bytes
+// kèm ETag mạnh (băm nội dung) để trả 304 khi client đã có bản mới nhất.
+// Nạp một lần khi khởi động; khi có thay đổi (ReferenceDataListener) thì dựng lại sau khi transaction commit.
+// Đọc không khóa: mỗi lần dựng lại thay nguyên ảnh chụp bằng một phép gán volatile.
+@Component
+public class ReferenceDataCache {
+
+    // JSON bytes + ETag của một tài nguyên
+    public static final class Entry {
+        public final byte[] json;
+        public final String etag;
+
+        Entry(byte[] json, String etag) {
+            this.json = json;
+            this.etag = etag;
+        }
+    }
+
+    private static final class Snapshot {
+        final Entry topics;
+        final Entry subjects;
+        final Entry grades;
+        final Entry tree;
+
+        Snapshot(Entry topics, Entry subjects, Entry grades, Entry tree) {
+            this.topics = topics;
+            this.subjects = subjects;
+            this.grades = grades;
+            this.tree = tree;
+        }
+    }
+
+    // Cây môn học -> khối lớp -> chủ đề (chỉ gồm khối lớp có chủ đề của môn đó)
+    public static class SubjectNode {
+        public Long id;
+        public String name;
+        public List<GradeNode> grades = new ArrayList<>();
+    }
+
+    public static class GradeNode {
+        public Long id;
+        public String name;
+        public List<TopicNode> topics = new ArrayList<>();
+    }
+
+    public static class TopicNode {
+        public Long id;
+        public String title;
+    }
+
+    public static class Tree {
+        public List<SubjectNode> subjects = new ArrayList<>();
+        public List<TopicNode> unassignedTopics = new ArrayList<>(); // chủ đề chưa gắn môn học hoặc khối lớp
+    }
+
+    private final TopicRepository topicRepository;
+    private final SubjectRepository subjectRepository;
+    private final GradeRepository gradeRepository;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot;
+    // Số lần commit có thay đổi danh mục; builtFrom = giá trị của nó lúc lần dựng gần nhất BẮT ĐẦU.
+    // Commit thứ v chỉ bỏ qua việc dựng lại khi đã có lần dựng bắt đầu sau nó (builtFrom >= v).
+    private final AtomicLong commits = new AtomicLong();
+    private volatile long builtFrom = -1;
+    private final Object rebuildLock = new Object();
+
+    public ReferenceDataCache(TopicRepository topicRepository, SubjectRepository subjectRepository,
+                              GradeRepository gradeRepository, ObjectMapper objectMapper) {
+        this.topicRepository = topicRepository;
+        this.subjectRepository = subjectRepository;
+        this.gradeRepository = gradeRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refresh() {
+        refreshAfter(commits.get());
+    }
+
+    // Dựng lại trừ khi đã có lần dựng bắt đầu sau commit thứ version. Các lời gọi đồng thời được gộp:
+    // chỉ một luồng dựng, các luồng chờ khóa thường thấy lần dựng vừa xong đã đủ mới và bỏ qua.
+    private void refreshAfter(long version) {
+        if (builtFrom >= version && snapshot != null) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            if (builtFrom >= version && snapshot != null) {
+                return;
+            }
+            long start = commits.get();
+            List<Topic> topics = topicRepository.findAllWithSubjectAndGrade();
+            List<Subject> subjects = subjectRepository.findAll();
+            List<Grade> grades = gradeRepository.findAll();
+            snapshot = new Snapshot(entry(topics), entry(subjects), entry(grades), entry(buildTree(topics, subjects)));
+            builtFrom = start;
+        }
+    }
+
+    public Entry topics() {
+        return current().topics;
+    }
+
+    public Entry subjects() {
+        return current().subjects;
+    }
+
+    public Entry grades() {
+        return current().grades;
+    }
+
+    public Entry tree() {
+        return current().tree;
+    }
+
+    // Gọi khi môn học / khối lớp / chủ đề thay đổi: dựng lại sau khi transaction commit
+    // (nhiều thay đổi trong cùng transaction chỉ đăng ký một lần)
+    void markStale() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshAfter(commits.incrementAndGet());
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Đánh số sau khi commit: lần dựng nào bắt đầu từ đây trở đi chắc chắn thấy thay đổi này
+                refreshAfter(commits.incrementAndGet());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReferenceDataCache.this);
+            }
+        });
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            // Có request trước khi ứng dụng sẵn sàng
+            refresh();
+            s = snapshot;
+        }
+        return s;
+    }
+
+    private static Tree buildTree(List<Topic> topics, List<Subject> subjects) {
+        Tree tree = new Tree();
+        Map<Long, SubjectNode> subjectNodes = new LinkedHashMap<>();
+        for (Subject subject : subjects) {
+            SubjectNode node = new SubjectNode();
+            node.id = subject.getId();
+            node.name = subject.getName();
+            subjectNodes.put(subject.getId(), node);
+            tree.subjects.add(node);
+        }
+        Map<String, GradeNode> gradeNodes = new LinkedHashMap<>();
+        for (Topic topic : topics) {
+            TopicNode topicNode = new TopicNode();
+            topicNode.id = topic.getId();
+            topicNode.title = topic.getTitle();
+            SubjectNode subjectNode = topic.getSubject() != null ? subjectNodes.get(topic.getSubject().getId()) : null;
+            if (subjectNode == null || topic.getGrade() == null) {
+                tree.unassignedTopics.add(topicNode);
+                continue;
+            }
+            Grade grade = topic.getGrade();
+            GradeNode gradeNode = gradeNodes.computeIfAbsent(subjectNode.id + "/" + grade.getId(), k -> {
+                GradeNode node = new GradeNode();
+                node.id = grade.getId();
+                node.name = grade.getName();
+                subjectNode.grades.add(node);
+                return node;
+            });
+            gradeNode.topics.add(topicNode);
+        }
+        return tree;
+    }
+
+    private Entry entry(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return new Entry(json, "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"");
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Không thể dựng dữ liệu danh mục", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.capstone.planbookai.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+// Entity listener trên Subject / Grade / Topic: báo ReferenceDataCache dựng lại sau khi commit.
+// Hibernate tạo listener qua Spring; lấy cache lúc có sự kiện (ObjectProvider) để tránh vòng phụ thuộc
+// EntityManagerFactory -> listener -> cache -> repository -> EntityManagerFactory.
+public class ReferenceDataListener {
+
+    private final ObjectProvider<ReferenceDataCache> cache;
+
+    public ReferenceDataListener(ObjectProvider<ReferenceDataCache> cache) {
+        this.cache = cache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void onChange(Object entity) {
+        cache.getObject().markStale();
+    }
+}
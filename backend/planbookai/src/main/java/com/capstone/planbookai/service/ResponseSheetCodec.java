@@ -0,0 +1,71 @@
+package com.capstone.planbookai.service;
+
+// Mã hóa lựa chọn của học sinh thành một mảng byte gọn: 3 bit cho mỗi câu, theo thứ tự câu trong đề.
+// Giá trị 3 bit: 0 = bỏ trống, 1..6 = đáp án A..F, 7 = không hợp lệ (tô nhiều ô / mã lạ).
+// Đề 40 câu chỉ tốn 15 byte, thay vì 40 dòng trong một bảng chi tiết.
+public final class ResponseSheetCodec {
+
+    public static final byte BLANK = ExamAnswerKey.NO_CODE; // -1
+    public static final byte INVALID = -2;
+
+    private static final int BITS = 3;
+    private static final int MAX_CODE = 5; // F
+    private static final int SLOT_INVALID = 7;
+
+    private ResponseSheetCodec() {
+    }
+
+    public static int packedLength(int questionCount) {
+        return (questionCount * BITS + 7) / 8;
+    }
+
+    // selections[i] = chỉ số đáp án đã chọn ở câu i (A=0...), BLANK hoặc INVALID
+    public static byte[] encode(byte[] selections) {
+        byte[] packed = new byte[packedLength(selections.length)];
+        for (int i = 0; i < selections.length; i++) {
+            int slot = toSlot(selections[i]);
+            int bit = i * BITS;
+            int index = bit >>> 3;
+            int shifted = slot << (bit & 7);
+            packed[index] |= (byte) shifted;
+            if ((bit & 7) > 8 - BITS) {
+                packed[index + 1] |= (byte) (shifted >>> 8);
+            }
+        }
+        return packed;
+    }
+
+    public static byte[] decode(byte[] packed, int questionCount) {
+        byte[] selections = new byte[questionCount];
+        for (int i = 0; i < questionCount; i++) {
+            int bit = i * BITS;
+            int index = bit >>> 3;
+            int word = packed[index] & 0xFF;
+            if (index + 1 < packed.length) {
+                word |= (packed[index + 1] & 0xFF) << 8;
+            }
+            selections[i] = fromSlot((word >>> (bit & 7)) & SLOT_INVALID);
+        }
+        return selections;
+    }
+
+    private static int toSlot(byte selection) {
+        if (selection == BLANK) {
+            return 0;
+        }
+        if (selection < 0 || selection > MAX_CODE) {
+            return SLOT_INVALID;
+        }
+        return selection + 1;
+    }
+
+    private static byte fromSlot(int slot) {
+        if (slot == 0) {
+            return BLANK;
+        }
+        if (slot == SLOT_INVALID) {
+            return INVALID;
+        }
+        return (byte) (slot - 1);
+    }
+}
@@ -0,0 +1,87 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.service.export.CsvTabularWriter;
+import com.capstone.planbookai.service.export.TabularWriter;
+import com.capstone.planbookai.service.export.XlsxTabularWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+// Xuất kết quả của một đề ra CSV / XLSX theo kiểu streaming:
+// đọc student_result bằng con trỏ forward-only (MySQL: fetchSize = Integer.MIN_VALUE -> trả từng dòng),
+// ghi ngay từng dòng ra response. Bộ nhớ không phụ thuộc số dòng.
+@Service
+public class ResultExportService {
+
+    public enum Format { CSV, XLSX }
+
+    private static final String SELECT_SQL =
+            "SELECT id, student_id, score, responses, response_count FROM student_result WHERE exam_id = ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ResultExportService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static Format parseFormat(String format) {
+        if (format == null || format.isBlank() || format.equalsIgnoreCase("csv")) {
+            return Format.CSV;
+        }
+        if (format.equalsIgnoreCase("xlsx")) {
+            return Format.XLSX;
+        }
+        throw new IllegalArgumentException("Định dạng xuất không hỗ trợ: " + format + " (csv hoặc xlsx)");
+    }
+
+    public void export(Long examId, Format format, OutputStream out) throws IOException {
+        try (TabularWriter writer = format == Format.XLSX
+                ? new XlsxTabularWriter(out, "Exam " + examId)
+                : new CsvTabularWriter(out)) {
+            writer.writeRow("result_id", "student_id", "score", "answers");
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(Integer.MIN_VALUE);
+                ps.setLong(1, examId);
+                return ps;
+            }, rs -> {
+                try {
+                    writer.writeRow(
+                            rs.getLong(1),
+                            rs.getObject(2, Long.class),
+                            rs.getObject(3, Double.class),
+                            answers(rs.getBytes(4), rs.getObject(5, Integer.class)));
+                } catch (IOException e) {
+                    // Client ngắt kết nối: dừng đọc tiếp
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Lựa chọn theo thứ tự câu: chữ cái đã chọn, "-" bỏ trống, "*" tô nhiều ô. VD "AC-D*B"
+    private static String answers(byte[] packed, Integer count) {
+        if (packed == null || count == null) {
+            return null;
+        }
+        byte[] selections = ResponseSheetCodec.decode(packed, count);
+        StringBuilder sb = new StringBuilder(selections.length);
+        for (byte s : selections) {
+            if (s == ResponseSheetCodec.BLANK) {
+                sb.append('-');
+            } else if (s < 0) {
+                sb.append('*');
+            } else {
+                sb.append((char) ('A' + s));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,16 @@
+package com.capstone.planbookai.service;
+
+// Hàng đợi ghi kết quả đã đầy - controller trả 429 kèm Retry-After
+public class ResultQueueFullException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ResultQueueFullException(int retryAfterSeconds) {
+        super("Hệ thống đang nhận quá nhiều bài nộp, vui lòng thử lại sau " + retryAfterSeconds + " giây");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,81 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.dto.ActivityEvent;
+import com.capstone.planbookai.entity.StudentResult;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+// Ghi nhiều StudentResult bằng một batch JDBC (rewriteBatchedStatements gộp thành INSERT nhiều dòng).
+// Id sinh ra được gán lại vào từng StudentResult để thống kê cộng dồn biết kết quả nào đã được tính.
+@Component
+public class StudentResultBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO student_result (exam_id, student_id, score, responses, response_count) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DashboardCounters dashboardCounters;
+    private final ActivityFeed activityFeed;
+
+    public StudentResultBatchWriter(JdbcTemplate jdbcTemplate, DashboardCounters dashboardCounters,
+                                    ActivityFeed activityFeed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dashboardCounters = dashboardCounters;
+        this.activityFeed = activityFeed;
+    }
+
+    public void insertAll(List<StudentResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        StudentResult r = results.get(i);
+                        ps.setObject(1, r.getExamId());
+                        ps.setObject(2, r.getStudentId());
+                        ps.setObject(3, r.getScore());
+                        ps.setBytes(4, r.getResponses());
+                        ps.setObject(5, r.getResponseCount());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return results.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < generated.size() && i < results.size(); i++) {
+            Object id = generated.get(i).values().iterator().next();
+            results.get(i).setId(((Number) id).longValue());
+        }
+        dashboardCounters.resultsChanged(results.size());
+        if (results.size() == 1) {
+            activityFeed.publishAfterCommit(ActivityEvent.Type.RESULT, null, "Đã chấm bài thi",
+                    describe(results.get(0)), "Vừa chấm");
+        } else {
+            double total = 0;
+            for (StudentResult r : results) {
+                total += r.getScore() != null ? r.getScore() : 0;
+            }
+            activityFeed.publishAfterCommit(ActivityEvent.Type.RESULT, null, "Đã chấm " + results.size() + " bài thi",
+                    "Điểm trung bình: " + String.format("%.2f", total / results.size()), "Vừa chấm");
+        }
+    }
+
+    static String describe(StudentResult r) {
+        return "HS: " + r.getStudentId() + " - Điểm: "
+                + (r.getScore() != null ? String.format("%.2f", r.getScore()) : "-");
+    }
+}
@@ -0,0 +1,244 @@
+package com.capstone.planbookai.service;
+
+import com.capstone.planbookai.entity.StudentResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Chế độ ghi trễ (write-behind) cho kết quả nộp bài, bật bằng planbookai.results.write-behind.enabled.
+// Kết quả đã chấm được đưa vào hàng đợi có giới hạn; một luồng nền gom theo số lượng (batch-size)
+// hoặc theo thời gian (flush-interval-ms) rồi ghi bằng batch JDBC. Khi tắt ứng dụng, hàng đợi được ghi hết.
+// Kết quả đã báo là lưu cho học sinh nên không bao giờ bị bỏ: batch ghi lỗi được giữ lại và thử lại định kỳ
+// (giãn dần tới MAX_RETRY_DELAY_MS) song song với luồng ghi bình thường. Hàng đợi và phần giữ lại dùng chung
+// sức chứa queue-capacity: khi DB ngừng, phần giữ lại đầy dần và enqueue trả 429 thay vì để heap phình ra.
+@Component
+public class StudentResultWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentResultWriteBehind.class);
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    private final StudentResultBatchWriter batchWriter;
+    private final ExamStatisticsAggregator statisticsAggregator;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int retryAfterSeconds;
+    private final int capacity;
+    private final BlockingQueue<StudentResult> queue;
+
+    private volatile boolean running;
+    private Thread writerThread;
+    // enqueue giữ khóa đọc khi kiểm tra running và offer; drain giữ khóa ghi khi tắt running:
+    // sau khi drain tắt running, không còn kết quả nào lọt vào hàng đợi mà không được ghi nốt
+    private final ReentrantReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    // Các dòng chưa ghi được; chỉ luồng ghi (hoặc drain sau khi luồng ghi đã dừng) truy cập
+    private final Deque<StudentResult> held = new ArrayDeque<>();
+    private volatile int heldCount;
+    private long retryDelayMs;
+    private long nextRetryAt;
+
+    public StudentResultWriteBehind(
+            StudentResultBatchWriter batchWriter,
+            ExamStatisticsAggregator statisticsAggregator,
+            @Value("${planbookai.results.write-behind.enabled:false}") boolean enabled,
+            @Value("${planbookai.results.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${planbookai.results.write-behind.batch-size:500}") int batchSize,
+            @Value("${planbookai.results.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${planbookai.results.write-behind.retry-after-seconds:2}") int retryAfterSeconds
+    ) {
+        this.batchWriter = batchWriter;
+        this.statisticsAggregator = statisticsAggregator;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.capacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runLoop, "student-result-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Số kết quả chưa ghi xuống DB: trong hàng đợi + đang chờ ghi lại sau lỗi
+    public int pending() {
+        return queue.size() + heldCount;
+    }
+
+    // Đưa kết quả vào hàng đợi; hàng đợi + phần giữ lại đã đủ sức chứa -> ResultQueueFullException (429)
+    public void enqueue(StudentResult result) {
+        acceptLock.readLock().lock();
+        try {
+            if (!running || pending() >= capacity || !queue.offer(result)) {
+                throw new ResultQueueFullException(retryAfterSeconds);
+            }
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                if (!held.isEmpty() && System.currentTimeMillis() >= nextRetryAt) {
+                    retryHeld();
+                }
+                StudentResult first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<StudentResult> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0) {
+                        break;
+                    }
+                    StudentResult next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void flush(List<StudentResult> batch) {
+        for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+            try {
+                batchWriter.insertAll(batch);
+                recordStatistics(batch);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Ghi {} kết quả thất bại (lần {}/{})", batch.size(), attempt, MAX_FLUSH_ATTEMPTS, e);
+            }
+        }
+        if (held.isEmpty()) {
+            retryDelayMs = 0;
+            scheduleRetry();
+        }
+        held.addAll(batch);
+        heldCount = held.size();
+        log.error("Chưa ghi được {} kết quả, giữ lại để thử lại sau {} ms (đang giữ {})",
+                batch.size(), retryDelayMs, held.size());
+    }
+
+    // Thử một dòng trước: DB còn lỗi thì mỗi lần thử lại chỉ tốn một câu INSERT. Dòng thử lỗi được chuyển
+    // xuống cuối để một dòng hỏng (VD: đề vừa bị xóa) không chặn các dòng sau. Dòng thử ghi được thì ghi
+    // phần còn lại theo batch; batch nào lỗi mới tách ra ghi từng dòng.
+    private void retryHeld() {
+        StudentResult probe = held.pollFirst();
+        if (insertOneByOne(List.of(probe)).isEmpty()) {
+            List<StudentResult> rest = new ArrayList<>(held);
+            held.clear();
+            for (int from = 0; from < rest.size(); from += batchSize) {
+                List<StudentResult> chunk = rest.subList(from, Math.min(from + batchSize, rest.size()));
+                try {
+                    batchWriter.insertAll(chunk);
+                    recordStatistics(chunk);
+                } catch (RuntimeException e) {
+                    held.addAll(insertOneByOne(chunk));
+                }
+            }
+        } else {
+            held.addLast(probe);
+        }
+        heldCount = held.size();
+        if (held.isEmpty()) {
+            log.info("Đã ghi xong các kết quả bị giữ lại");
+        } else {
+            scheduleRetry();
+            log.error("Vẫn chưa ghi được {} kết quả, thử lại sau {} ms", held.size(), retryDelayMs);
+        }
+    }
+
+    private List<StudentResult> insertOneByOne(List<StudentResult> rows) {
+        List<StudentResult> failed = new ArrayList<>();
+        for (StudentResult row : rows) {
+            try {
+                batchWriter.insertAll(List.of(row));
+                recordStatistics(List.of(row));
+            } catch (RuntimeException e) {
+                log.warn("Ghi kết quả exam={} student={} thất bại", row.getExamId(), row.getStudentId(), e);
+                failed.add(row);
+            }
+        }
+        return failed;
+    }
+
+    // Như các đường ghi khác: thống kê cộng dồn chỉ tính kết quả đã thực sự được lưu
+    private void recordStatistics(List<StudentResult> saved) {
+        for (StudentResult r : saved) {
+            statisticsAggregator.record(r);
+        }
+    }
+
+    private void scheduleRetry() {
+        retryDelayMs = retryDelayMs == 0 ? flushIntervalMs : Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+        nextRetryAt = System.currentTimeMillis() + retryDelayMs;
+    }
+
+    // Ngừng nhận kết quả mới, chờ luồng nền dừng rồi ghi nốt phần còn lại trong hàng đợi
+    @PreDestroy
+    void drain() throws InterruptedException {
+        acceptLock.writeLock().lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        // Luồng ghi dừng sau batch đang ghi; từ đây chỉ luồng này đụng tới hàng đợi và danh sách giữ lại
+        writerThread.join();
+        List<StudentResult> rest = new ArrayList<>(batchSize);
+        while (queue.drainTo(rest, batchSize) > 0) {
+            flush(rest);
+            rest.clear();
+        }
+        // Mỗi lượt vượt qua một dòng thử lỗi, nên một dòng hỏng đứng đầu không làm các dòng khác bị bỏ qua
+        for (int attempt = 0; attempt < MAX_FLUSH_ATTEMPTS && !held.isEmpty(); attempt++) {
+            retryHeld();
+        }
+        for (StudentResult row : held) {
+            // Không còn cách ghi nào khác khi đang tắt: ghi đủ dữ liệu ra log để khôi phục thủ công
+            log.error("KHÔNG LƯU ĐƯỢC kết quả: examId={}, studentId={}, score={}, responseCount={}, responses={}",
+                    row.getExamId(), row.getStudentId(), row.getScore(), row.getResponseCount(),
+                    row.getResponses() != null ? Base64.getEncoder().encodeToString(row.getResponses()) : null);
+        }
+    }
+}
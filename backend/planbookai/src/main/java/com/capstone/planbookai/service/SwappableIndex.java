@@ -0,0 +1,46 @@
+package com.capstone.planbookai.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Giữ một chỉ mục trong bộ nhớ được dựng lại toàn bộ từ DB rồi thay bằng phép gán.
+// Các cập nhật (put/remove sau commit) đến trong lúc đang đọc DB được ghi lại và áp lên bản mới
+// trước khi thay, nên không bị mất. Cập nhật phải lặp lại được (áp hai lần cho cùng kết quả).
+final class SwappableIndex<T> {
+
+    private volatile T current;
+    private List<Consumer<T>> buffered; // khác null khi đang dựng lại; giữ khóa this khi truy cập
+
+    SwappableIndex(T initial) {
+        this.current = initial;
+    }
+
+    T get() {
+        return current;
+    }
+
+    synchronized void update(Consumer<T> change) {
+        change.accept(current);
+        if (buffered != null) {
+            buffered.add(change);
+        }
+    }
+
+    synchronized void beginRebuild() {
+        buffered = new ArrayList<>();
+    }
+
+    synchronized void finishRebuild(T fresh) {
+        if (buffered != null) {
+            buffered.forEach(change -> change.accept(fresh));
+        }
+        buffered = null;
+        current = fresh;
+    }
+
+    // Dựng lại thất bại: bỏ nhật ký, giữ bản hiện tại (đã nhận đủ cập nhật)
+    synchronized void abortRebuild() {
+        buffered = null;
+    }
+}
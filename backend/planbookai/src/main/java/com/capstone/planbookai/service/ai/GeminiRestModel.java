@@ -0,0 +1,107 @@
+package com.capstone.planbookai.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Gọi Gemini qua REST (models/{model}:generateContent) bằng một HttpClient dùng chung cho cả ứng dụng:
+// kết nối TLS/HTTP2 được giữ lại và dùng lại giữa các request thay vì tạo client mới mỗi lần.
+// sendAsync không giữ luồng nào trong lúc chờ mô hình trả lời; vài luồng nhỏ chỉ dùng để xử lý phản hồi.
+@Component
+public class GeminiRestModel implements QuestionGenerationModel {
+
+    private final ObjectMapper objectMapper;
+    private final String apiKey;
+    private final URI endpoint;
+    private final Duration requestTimeout;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+
+    public GeminiRestModel(
+            ObjectMapper objectMapper,
+            @Value("${gemini.api.key}") String apiKey,
+            @Value("${gemini.api.base-url:https://generativelanguage.googleapis.com}") String baseUrl,
+            @Value("${gemini.model:gemini-2.5-flash-lite}") String model,
+            @Value("${gemini.api.timeout-ms:60000}") long timeoutMs,
+            @Value("${gemini.api.threads:4}") int threads) {
+        this.objectMapper = objectMapper;
+        this.apiKey = apiKey;
+        this.endpoint = URI.create(baseUrl.replaceAll("/+$", "") + "/v1beta/models/" + model + ":generateContent");
+        this.requestTimeout = Duration.ofMillis(timeoutMs);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "gemini-http-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<String> generate(String prompt) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.putArray("contents").addObject().putArray("parts").addObject().put("text", prompt);
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(endpoint)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("x-goog-api-key", apiKey)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(this::readText);
+    }
+
+    // Ghép các phần văn bản của ứng viên đầu tiên
+    private String readText(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            String detail = new String(response.body(), StandardCharsets.UTF_8);
+            throw new RuntimeException("Gemini trả về HTTP " + response.statusCode() + ": "
+                    + (detail.length() > 300 ? detail.substring(0, 300) : detail));
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : root.path("candidates").path(0).path("content").path("parts")) {
+            text.append(part.path("text").asText(""));
+        }
+        if (text.length() == 0) {
+            String reason = root.path("promptFeedback").path("blockReason").asText(
+                    root.path("candidates").path(0).path("finishReason").asText("không có nội dung"));
+            throw new RuntimeException("Gemini không trả về văn bản: " + reason);
+        }
+        return text.toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,11 @@
+package com.capstone.planbookai.service.ai;
+
+import java.util.concurrent.CompletableFuture;
+
+// Mô hình sinh văn bản dùng để tạo câu hỏi. Không chặn luồng gọi: kết quả (văn bản thô của mô hình)
+// trả về qua CompletableFuture. Triển khai mặc định gọi Gemini REST API; khi test/benchmark có thể
+// trỏ base URL tới một server giả lập cục bộ.
+public interface QuestionGenerationModel {
+
+    CompletableFuture<String> generate(String prompt);
+}
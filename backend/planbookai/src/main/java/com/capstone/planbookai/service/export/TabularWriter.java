@@ -0,0 +1,14 @@
+package com.capstone.planbookai.service.export;
+
+import java.io.IOException;
+
+// Ghi bảng dữ liệu ra luồng từng dòng một (không giữ dữ liệu trong bộ nhớ).
+// Giá trị là String, Number hoặc null (ô trống).
+public interface TabularWriter extends AutoCloseable {
+
+    void writeRow(Object... values) throws IOException;
+
+    // Ghi phần kết thúc của định dạng và flush; không đóng luồng gốc
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,111 @@
+package com.capstone.planbookai.service.importer;
+
+import com.capstone.planbookai.payload.request.QuestionRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Định dạng Aiken (văn bản thuần, giống Moodle): mỗi câu gồm đề (một hoặc nhiều dòng), các dòng phương án
+// "A. ..." hoặc "A) ...", kết thúc bằng "ANSWER: B". Các câu cách nhau bởi dòng trống (không bắt buộc).
+// Không có chủ đề/mức độ: dùng giá trị mặc định của lần import.
+class AikenQuestionReader implements QuestionRecordReader {
+
+    private static final Pattern OPTION = Pattern.compile("^([A-Za-z])\\s*[.)]\\s+(.*)$");
+    private static final Pattern ANSWER = Pattern.compile("^ANSWER\\s*:\\s*(.*)$", Pattern.CASE_INSENSITIVE);
+
+    private final BufferedReader in;
+    private int row;
+    private String pushedBack;
+
+    AikenQuestionReader(BufferedReader in) throws IOException {
+        this.in = in;
+        in.mark(1);
+        if (in.read() != '\uFEFF') {
+            in.reset();
+        }
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        StringBuilder stem = new StringBuilder();
+        List<QuestionRequest.AnswerDTO> answers = new ArrayList<>();
+        String line;
+        while ((line = readLine()) != null) {
+            String text = line.trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            Matcher answer = ANSWER.matcher(text);
+            if (answer.matches() && stem.length() > 0) {
+                row++;
+                return build(stem, answers, answer.group(1).trim());
+            }
+            Matcher option = OPTION.matcher(text);
+            if (option.matches() && stem.length() > 0) {
+                QuestionRequest.AnswerDTO dto = new QuestionRequest.AnswerDTO();
+                dto.setCode(option.group(1).toUpperCase(Locale.ROOT));
+                dto.setContent(option.group(2).trim());
+                dto.setIsCorrect(false);
+                answers.add(dto);
+            } else if (answers.isEmpty()) {
+                // Đề nhiều dòng
+                if (stem.length() > 0) {
+                    stem.append('\n');
+                }
+                stem.append(text);
+            } else {
+                // Đã có phương án mà gặp dòng thường: câu trước thiếu ANSWER, dòng này mở câu mới
+                pushedBack = line;
+                row++;
+                return ImportRecord.failed(row, "Thiếu dòng ANSWER cho câu: " + abbreviate(stem));
+            }
+        }
+        if (stem.length() == 0) {
+            return null;
+        }
+        row++;
+        return ImportRecord.failed(row, "Thiếu dòng ANSWER cho câu: " + abbreviate(stem));
+    }
+
+    private ImportRecord build(StringBuilder stem, List<QuestionRequest.AnswerDTO> answers, String correct) {
+        boolean found = false;
+        for (String code : correct.split("[,;\\s]+")) {
+            for (QuestionRequest.AnswerDTO dto : answers) {
+                if (dto.getCode().equalsIgnoreCase(code)) {
+                    dto.setIsCorrect(true);
+                    found = true;
+                }
+            }
+        }
+        if (!found) {
+            return ImportRecord.failed(row, "ANSWER không khớp phương án nào: " + correct);
+        }
+        QuestionRequest q = new QuestionRequest();
+        q.setContent(stem.toString());
+        q.setAnswers(answers);
+        return ImportRecord.ok(row, q);
+    }
+
+    private String readLine() throws IOException {
+        if (pushedBack != null) {
+            String line = pushedBack;
+            pushedBack = null;
+            return line;
+        }
+        return in.readLine();
+    }
+
+    private static String abbreviate(CharSequence text) {
+        return text.length() <= 60 ? text.toString() : text.subSequence(0, 60) + "...";
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,193 @@
+package com.capstone.planbookai.service.importer;
+
+import com.capstone.planbookai.entity.QuestionLevel;
+import com.capstone.planbookai.payload.request.QuestionRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// CSV theo RFC 4180 (ô bọc "..." có thể chứa dấu phẩy, xuống dòng), dòng đầu là tiêu đề. Các cột (không phân biệt hoa thường):
+//   topicId, level, content, A, B, C, D (E, F nếu có), correct
+// correct là mã đáp án đúng, VD "B" hoặc "A,C". topicId/level để trống thì dùng giá trị mặc định của lần import.
+class CsvQuestionReader implements QuestionRecordReader {
+
+    private static final int MAX_OPTIONS = 6;
+
+    private final BufferedReader in;
+    private int topicCol = -1;
+    private int levelCol = -1;
+    private int contentCol = -1;
+    private int correctCol = -1;
+    private final int[] optionCols = new int[MAX_OPTIONS];
+    private int row;
+    private boolean eof;
+
+    CsvQuestionReader(BufferedReader in) throws IOException {
+        this.in = in;
+        // Bỏ BOM do Excel ghi ở đầu file UTF-8
+        in.mark(1);
+        if (in.read() != '\uFEFF') {
+            in.reset();
+        }
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("File CSV rỗng");
+        }
+        Arrays.fill(optionCols, -1);
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "").replace(" ", "");
+            switch (name) {
+                case "topicid":
+                    topicCol = i;
+                    break;
+                case "level":
+                    levelCol = i;
+                    break;
+                case "content":
+                case "question":
+                    contentCol = i;
+                    break;
+                case "correct":
+                case "answer":
+                    correctCol = i;
+                    break;
+                default:
+                    int option = optionIndex(name);
+                    if (option >= 0) {
+                        optionCols[option] = i;
+                    }
+            }
+        }
+        if (contentCol < 0 || correctCol < 0) {
+            throw new IllegalArgumentException("CSV phải có cột content và correct");
+        }
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank()); // bỏ dòng trống
+        row++;
+
+        QuestionRequest q = new QuestionRequest();
+        q.setContent(cell(record, contentCol));
+        String topic = cell(record, topicCol);
+        if (topic != null && !topic.isBlank()) {
+            try {
+                q.setTopicId(Long.parseLong(topic.trim()));
+            } catch (NumberFormatException e) {
+                return ImportRecord.failed(row, "topicId không hợp lệ: " + topic);
+            }
+        }
+        String level = cell(record, levelCol);
+        if (level != null && !level.isBlank()) {
+            try {
+                q.setLevel(QuestionLevel.valueOf(level.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                return ImportRecord.failed(row, "level không hợp lệ: " + level);
+            }
+        }
+
+        Set<String> correct = new HashSet<>();
+        String correctCell = cell(record, correctCol);
+        if (correctCell != null) {
+            for (String code : correctCell.split("[,;\\s]+")) {
+                if (!code.isEmpty()) {
+                    correct.add(code.toUpperCase(Locale.ROOT));
+                }
+            }
+        }
+        List<QuestionRequest.AnswerDTO> answers = new ArrayList<>();
+        for (int k = 0; k < MAX_OPTIONS; k++) {
+            String content = cell(record, optionCols[k]);
+            if (content == null || content.isBlank()) {
+                continue;
+            }
+            QuestionRequest.AnswerDTO answer = new QuestionRequest.AnswerDTO();
+            answer.setCode(String.valueOf((char) ('A' + k)));
+            answer.setContent(content);
+            answer.setIsCorrect(correct.contains(answer.getCode()));
+            answers.add(answer);
+        }
+        q.setAnswers(answers);
+        return ImportRecord.ok(row, q);
+    }
+
+    // "a", "answera", "optiona" -> 0 ...
+    private static int optionIndex(String name) {
+        String code = name.startsWith("answer") ? name.substring(6) : name.startsWith("option") ? name.substring(6) : name;
+        if (code.length() == 1 && code.charAt(0) >= 'a' && code.charAt(0) < 'a' + MAX_OPTIONS) {
+            return code.charAt(0) - 'a';
+        }
+        return -1;
+    }
+
+    private static String cell(List<String> record, int col) {
+        return col >= 0 && col < record.size() ? record.get(col) : null;
+    }
+
+    // Một bản ghi CSV (có thể trải nhiều dòng vật lý nếu ô được bọc trong dấu nháy); null khi hết file
+    private List<String> readRecord() throws IOException {
+        if (eof) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        while (true) {
+            int c = in.read();
+            if (c < 0) {
+                eof = true;
+                if (!any && fields.isEmpty()) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    int n = in.read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (n >= 0) {
+                            in.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,25 @@
+package com.capstone.planbookai.service.importer;
+
+import com.capstone.planbookai.payload.request.QuestionRequest;
+
+// Một câu hỏi đọc được từ file import. row = thứ tự bản ghi trong file (bắt đầu từ 1);
+// error != null nếu bản ghi không đọc được (question khi đó có thể null)
+public class ImportRecord {
+    public final int row;
+    public final QuestionRequest question;
+    public final String error;
+
+    ImportRecord(int row, QuestionRequest question, String error) {
+        this.row = row;
+        this.question = question;
+        this.error = error;
+    }
+
+    static ImportRecord ok(int row, QuestionRequest question) {
+        return new ImportRecord(row, question, null);
+    }
+
+    static ImportRecord failed(int row, String error) {
+        return new ImportRecord(row, null, error);
+    }
+}
@@ -0,0 +1,52 @@
+package com.capstone.planbookai.service.importer;
+
+import com.capstone.planbookai.payload.request.QuestionRequest;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Mảng JSON các câu hỏi cùng cấu trúc với POST /api/questions:
+// [{"topicId": 1, "level": "EASY", "content": "...", "answers": [{"code": "A", "content": "...", "isCorrect": true}, ...]}, ...]
+// Mỗi phần tử được đọc thành cây trước rồi mới ánh xạ, để một phần tử sai kiểu không làm hỏng phần còn lại.
+class JsonQuestionReader implements QuestionRecordReader {
+
+    private final JsonParser parser;
+    private final ObjectMapper objectMapper;
+    private int row;
+
+    JsonQuestionReader(InputStream in, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Dữ liệu phải là một mảng JSON các câu hỏi");
+        }
+    }
+
+    @Override
+    public ImportRecord next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.END_ARRAY) {
+            return null;
+        }
+        row++;
+        JsonNode node = parser.readValueAsTree();
+        if (node == null || !node.isObject()) {
+            return ImportRecord.failed(row, "Phần tử không phải đối tượng JSON");
+        }
+        try {
+            return ImportRecord.ok(row, objectMapper.treeToValue(node, QuestionRequest.class));
+        } catch (JsonProcessingException e) {
+            return ImportRecord.failed(row, "Sai cấu trúc: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,57 @@
+package com.capstone.planbookai.service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+// Đọc lần lượt từng câu hỏi từ file import (streaming, không nạp cả file vào bộ nhớ).
+// next() trả về null khi hết file.
+public interface QuestionRecordReader extends Closeable {
+
+    enum Format { CSV, JSON, AIKEN }
+
+    ImportRecord next() throws IOException;
+
+    static QuestionRecordReader open(Format format, InputStream in, ObjectMapper objectMapper) throws IOException {
+        switch (format) {
+            case JSON:
+                return new JsonQuestionReader(in, objectMapper);
+            case CSV:
+                return new CsvQuestionReader(utf8(in));
+            default:
+                return new AikenQuestionReader(utf8(in));
+        }
+    }
+
+    // Định dạng lấy từ tham số format, nếu không có thì đoán theo đuôi file (.csv, .json, .txt = Aiken)
+    static Format parseFormat(String format, String fileName) {
+        String value = format;
+        if ((value == null || value.isBlank()) && fileName != null && fileName.lastIndexOf('.') >= 0) {
+            value = fileName.substring(fileName.lastIndexOf('.') + 1);
+        }
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Thiếu định dạng file (csv, json hoặc aiken)");
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return Format.CSV;
+            case "json":
+                return Format.JSON;
+            case "aiken":
+            case "txt":
+                return Format.AIKEN;
+            default:
+                throw new IllegalArgumentException("Định dạng không hỗ trợ: " + value + " (chỉ csv, json, aiken)");
+        }
+    }
+
+    private static BufferedReader utf8(InputStream in) {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+}
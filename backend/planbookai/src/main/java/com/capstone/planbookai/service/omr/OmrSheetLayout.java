@@ -0,0 +1,76 @@
+package com.capstone.planbookai.service.omr;
+
+// Bố cục phiếu trả lời trắc nghiệm, tính trong hệ tọa độ của 4 dấu định vị:
+// (u, v) = (0, 0) là tâm dấu góc trên-trái, (1, 1) là tâm dấu góc dưới-phải.
+// Mọi kích thước đo theo đơn vị u (khoảng cách giữa hai dấu trên cùng = 1).
+// Renderer và recognizer dùng chung bố cục này nên phiếu in ra luôn khớp với phiếu được chấm.
+public final class OmrSheetLayout {
+
+    public static final int MAX_OPTIONS = 6; // A..F, giới hạn của ResponseSheetCodec
+    public static final int QUESTIONS_PER_COLUMN = 25;
+
+    // Chiều cao / chiều rộng của khung dấu định vị (xấp xỉ khổ A4 trừ lề)
+    public static final double ASPECT = 1.38;
+    // Cạnh dấu định vị (đơn vị u)
+    public static final double MARK_SIZE = 0.04;
+
+    // Vùng lưới ô tô (u, v); phía trên dành cho tiêu đề, mã đề, mã học sinh
+    private static final double GRID_LEFT = 0.05;
+    private static final double GRID_RIGHT = 0.97;
+    private static final double GRID_TOP = 0.10;
+    private static final double GRID_BOTTOM = 0.97;
+    // Phần đầu mỗi cột dành cho số thứ tự câu
+    private static final double LABEL_WIDTH = 0.3;
+
+    private final int questionCount;
+    private final int options;
+    private final int columns;
+    private final double columnWidth;
+    private final double rowHeight;
+    private final double optionSpacing;
+    private final double bubbleRadius;
+
+    public OmrSheetLayout(int questionCount, int options) {
+        if (questionCount <= 0) {
+            throw new IllegalArgumentException("Số câu trên phiếu phải lớn hơn 0");
+        }
+        if (options < 2 || options > MAX_OPTIONS) {
+            throw new IllegalArgumentException("Số phương án mỗi câu phải từ 2 đến " + MAX_OPTIONS);
+        }
+        this.questionCount = questionCount;
+        this.options = options;
+        this.columns = Math.max(4, (questionCount + QUESTIONS_PER_COLUMN - 1) / QUESTIONS_PER_COLUMN);
+        this.columnWidth = (GRID_RIGHT - GRID_LEFT) / columns;
+        this.rowHeight = (GRID_BOTTOM - GRID_TOP) / QUESTIONS_PER_COLUMN;
+        this.optionSpacing = columnWidth * (1 - LABEL_WIDTH) / options;
+        // Tránh chồng lấn cả theo chiều ngang lẫn chiều dọc (rowHeight tính theo v -> đổi sang u)
+        this.bubbleRadius = 0.36 * Math.min(optionSpacing, rowHeight * ASPECT);
+    }
+
+    // Đề có ít hơn 4 phương án vẫn in 4 ô để phiếu của mọi đề cùng dạng
+    public static OmrSheetLayout forExam(int questionCount, int maxOptions) {
+        return new OmrSheetLayout(questionCount, Math.min(MAX_OPTIONS, Math.max(4, maxOptions)));
+    }
+
+    public int questionCount() {
+        return questionCount;
+    }
+
+    public int options() {
+        return options;
+    }
+
+    public double bubbleRadius() {
+        return bubbleRadius;
+    }
+
+    public double bubbleU(int question, int option) {
+        int column = question / QUESTIONS_PER_COLUMN;
+        return GRID_LEFT + column * columnWidth + columnWidth * LABEL_WIDTH + (option + 0.5) * optionSpacing;
+    }
+
+    public double bubbleV(int question) {
+        int row = question % QUESTIONS_PER_COLUMN;
+        return GRID_TOP + (row + 0.5) * rowHeight;
+    }
+}
@@ -0,0 +1,295 @@
+package com.capstone.planbookai.service.omr;
+
+import com.capstone.planbookai.service.ResponseSheetCodec;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+
+// Nhận dạng phiếu trả lời (OMR) hoàn toàn trong tiến trình:
+// 1. Chuyển ảnh sang mức xám (thu nhỏ ảnh quét độ phân giải cao về ~1300 px chiều ngang)
+// 2. Tách nền / nét tô bằng ngưỡng Otsu
+// 3. Tìm 4 dấu định vị (khối vuông đặc lớn nhất ở mỗi góc)
+// 4. Ánh xạ song tuyến tính từ tọa độ bố cục (u, v) sang pixel theo 4 dấu -> tự bù nghiêng, lệch, co giãn
+// 5. Đo tỉ lệ điểm tối trong lõi từng ô; ô vượt ngưỡng được coi là đã tô
+public final class OmrSheetRecognizer {
+
+    private static final int TARGET_WIDTH = 1300;
+    // Tỉ lệ điểm tối trong lõi ô để coi là đã tô
+    private static final double FILL_THRESHOLD = 0.5;
+    // Chỉ lấy lõi ô (bỏ viền và phần lớn chữ cái in trong ô)
+    private static final double SAMPLE_RADIUS = 0.6;
+    // Vùng tìm dấu định vị ở mỗi góc (tỉ lệ theo kích thước ảnh)
+    private static final double CORNER_WINDOW_X = 0.25;
+    private static final double CORNER_WINDOW_Y = 0.2;
+    private static final double MIN_FILL = 0.65;
+
+    private OmrSheetRecognizer() {
+    }
+
+    // Giải mã ảnh quét, lấy mẫu thưa ngay khi giải mã để ảnh 300 dpi không phải bung hết ra bộ nhớ.
+    // Trả về null nếu định dạng ảnh không được hỗ trợ.
+    public static BufferedImage loadImage(InputStream in) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            if (stream == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int step = Math.max(1, (reader.getWidth(0) + TARGET_WIDTH / 2) / TARGET_WIDTH);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Trả về vị trí ô được tô của từng câu (0 = ô đầu tiên), BLANK nếu bỏ trống, INVALID nếu tô nhiều ô
+    public static byte[] read(BufferedImage image, OmrSheetLayout layout) {
+        GrayImage gray = GrayImage.of(image);
+        int threshold = otsuThreshold(gray.pixels);
+        boolean[] dark = new boolean[gray.pixels.length];
+        for (int i = 0; i < dark.length; i++) {
+            dark[i] = (gray.pixels[i] & 0xFF) < threshold;
+        }
+
+        double[][] marks = findMarks(dark, gray.width, gray.height);
+        double[] tl = marks[0], tr = marks[1], bl = marks[2], br = marks[3];
+        double scale = (dist(tl, tr) + dist(bl, br)) / 2;
+        double sampleRadius = layout.bubbleRadius() * scale * SAMPLE_RADIUS;
+
+        byte[] marked = new byte[layout.questionCount()];
+        for (int q = 0; q < marked.length; q++) {
+            double v = layout.bubbleV(q);
+            int found = ResponseSheetCodec.BLANK;
+            for (int k = 0; k < layout.options(); k++) {
+                double u = layout.bubbleU(q, k);
+                double x = (1 - u) * (1 - v) * tl[0] + u * (1 - v) * tr[0] + (1 - u) * v * bl[0] + u * v * br[0];
+                double y = (1 - u) * (1 - v) * tl[1] + u * (1 - v) * tr[1] + (1 - u) * v * bl[1] + u * v * br[1];
+                if (fillRatio(dark, gray.width, gray.height, x, y, sampleRadius) >= FILL_THRESHOLD) {
+                    found = found == ResponseSheetCodec.BLANK ? k : ResponseSheetCodec.INVALID;
+                }
+            }
+            marked[q] = (byte) found;
+        }
+        return marked;
+    }
+
+    static int otsuThreshold(byte[] pixels) {
+        long[] histogram = new long[256];
+        for (byte p : pixels) {
+            histogram[p & 0xFF]++;
+        }
+        long total = pixels.length;
+        double sumAll = 0;
+        for (int i = 0; i < 256; i++) {
+            sumAll += (double) i * histogram[i];
+        }
+        double sumBackground = 0;
+        long weightBackground = 0;
+        double bestVariance = -1;
+        int best = 128;
+        for (int t = 0; t < 256; t++) {
+            weightBackground += histogram[t];
+            if (weightBackground == 0) {
+                continue;
+            }
+            long weightForeground = total - weightBackground;
+            if (weightForeground == 0) {
+                break;
+            }
+            sumBackground += (double) t * histogram[t];
+            double meanBackground = sumBackground / weightBackground;
+            double meanForeground = (sumAll - sumBackground) / weightForeground;
+            double variance = (double) weightBackground * weightForeground
+                    * (meanBackground - meanForeground) * (meanBackground - meanForeground);
+            if (variance > bestVariance) {
+                bestVariance = variance;
+                best = t + 1; // pixel < best là điểm tối
+            }
+        }
+        return best;
+    }
+
+    // [trên-trái, trên-phải, dưới-trái, dưới-phải], mỗi phần tử là tâm {x, y}
+    private static double[][] findMarks(boolean[] dark, int width, int height) {
+        int windowW = (int) (width * CORNER_WINDOW_X);
+        int windowH = (int) (height * CORNER_WINDOW_Y);
+        int minSide = Math.max(4, (int) (width * 0.012));
+        int maxSide = (int) (width * 0.1);
+        boolean[] visited = new boolean[dark.length];
+        int[] stack = new int[windowW * windowH];
+
+        double[][] marks = new double[4][];
+        for (int corner = 0; corner < 4; corner++) {
+            int x0 = corner % 2 == 0 ? 0 : width - windowW;
+            int y0 = corner / 2 == 0 ? 0 : height - windowH;
+            marks[corner] = largestSquareBlob(dark, visited, stack, width, x0, y0, x0 + windowW, y0 + windowH, minSide, maxSide);
+            if (marks[corner] == null) {
+                throw new IllegalArgumentException("Không tìm thấy đủ 4 dấu định vị trên phiếu trả lời");
+            }
+        }
+        return marks;
+    }
+
+    // Thành phần liên thông tối lớn nhất có dạng khối vuông đặc trong cửa sổ [x0, x1) x [y0, y1)
+    private static double[] largestSquareBlob(boolean[] dark, boolean[] visited, int[] stack, int width,
+                                              int x0, int y0, int x1, int y1, int minSide, int maxSide) {
+        double[] best = null;
+        int bestArea = 0;
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                int start = y * width + x;
+                if (!dark[start] || visited[start]) {
+                    continue;
+                }
+                int area = 0, minX = x, maxX = x, minY = y, maxY = y;
+                long sumX = 0, sumY = 0;
+                int top = 0;
+                stack[top++] = start;
+                visited[start] = true;
+                while (top > 0) {
+                    int p = stack[--top];
+                    int px = p % width, py = p / width;
+                    area++;
+                    sumX += px;
+                    sumY += py;
+                    if (px < minX) minX = px;
+                    if (px > maxX) maxX = px;
+                    if (py < minY) minY = py;
+                    if (py > maxY) maxY = py;
+                    if (px > x0 && dark[p - 1] && !visited[p - 1]) {
+                        visited[p - 1] = true;
+                        stack[top++] = p - 1;
+                    }
+                    if (px + 1 < x1 && dark[p + 1] && !visited[p + 1]) {
+                        visited[p + 1] = true;
+                        stack[top++] = p + 1;
+                    }
+                    if (py > y0 && dark[p - width] && !visited[p - width]) {
+                        visited[p - width] = true;
+                        stack[top++] = p - width;
+                    }
+                    if (py + 1 < y1 && dark[p + width] && !visited[p + width]) {
+                        visited[p + width] = true;
+                        stack[top++] = p + width;
+                    }
+                }
+                int w = maxX - minX + 1, h = maxY - minY + 1;
+                if (w < minSide || h < minSide || w > maxSide || h > maxSide) {
+                    continue;
+                }
+                double aspect = (double) w / h;
+                double fill = (double) area / ((long) w * h);
+                if (aspect < 0.6 || aspect > 1.67 || fill < MIN_FILL || area <= bestArea) {
+                    continue;
+                }
+                bestArea = area;
+                best = new double[]{(double) sumX / area, (double) sumY / area};
+            }
+        }
+        return best;
+    }
+
+    private static double fillRatio(boolean[] dark, int width, int height, double cx, double cy, double radius) {
+        int minX = Math.max(0, (int) Math.floor(cx - radius));
+        int maxX = Math.min(width - 1, (int) Math.ceil(cx + radius));
+        int minY = Math.max(0, (int) Math.floor(cy - radius));
+        int maxY = Math.min(height - 1, (int) Math.ceil(cy + radius));
+        double r2 = radius * radius;
+        int inside = 0, filled = 0;
+        for (int y = minY; y <= maxY; y++) {
+            double dy = y - cy;
+            int row = y * width;
+            for (int x = minX; x <= maxX; x++) {
+                double dx = x - cx;
+                if (dx * dx + dy * dy <= r2) {
+                    inside++;
+                    if (dark[row + x]) {
+                        filled++;
+                    }
+                }
+            }
+        }
+        return inside == 0 ? 0 : (double) filled / inside;
+    }
+
+    private static double dist(double[] a, double[] b) {
+        return Math.hypot(a[0] - b[0], a[1] - b[1]);
+    }
+
+    // Ảnh xám 8 bit, đã thu nhỏ theo hệ số nguyên (lấy trung bình từng khối step x step)
+    private static final class GrayImage {
+        final byte[] pixels;
+        final int width;
+        final int height;
+
+        private GrayImage(byte[] pixels, int width, int height) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+        }
+
+        static GrayImage of(BufferedImage image) {
+            int srcW = image.getWidth(), srcH = image.getHeight();
+            int step = Math.max(1, (srcW + TARGET_WIDTH / 2) / TARGET_WIDTH);
+            if (step == 1 && image.getType() == BufferedImage.TYPE_BYTE_GRAY
+                    && image.getRaster().getDataBuffer() instanceof DataBufferByte buffer
+                    && buffer.getData().length == srcW * srcH) {
+                return new GrayImage(buffer.getData(), srcW, srcH);
+            }
+
+            // Ảnh RGB thông thường: đọc thẳng mảng pixel, tránh chuyển đổi màu qua getRGB
+            int[] direct = null;
+            int type = image.getType();
+            if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                    && image.getRaster().getDataBuffer() instanceof DataBufferInt buffer
+                    && buffer.getData().length == srcW * srcH) {
+                direct = buffer.getData();
+            }
+
+            int w = srcW / step, h = srcH / step;
+            byte[] pixels = new byte[w * h];
+            int[] row = direct != null ? direct : new int[srcW];
+            int[] acc = new int[w];
+            for (int y = 0; y < h; y++) {
+                Arrays.fill(acc, 0);
+                for (int dy = 0; dy < step; dy++) {
+                    int offset = 0;
+                    if (direct != null) {
+                        offset = (y * step + dy) * srcW;
+                    } else {
+                        image.getRGB(0, y * step + dy, srcW, 1, row, 0, srcW);
+                    }
+                    for (int x = 0; x < w; x++) {
+                        for (int dx = 0; dx < step; dx++) {
+                            int rgb = row[offset + x * step + dx];
+                            // Độ sáng theo hệ số BT.601 (số nguyên)
+                            acc[x] += (((rgb >> 16) & 0xFF) * 299 + ((rgb >> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114) / 1000;
+                        }
+                    }
+                }
+                int cells = step * step;
+                for (int x = 0; x < w; x++) {
+                    pixels[y * w + x] = (byte) (acc[x] / cells);
+                }
+            }
+            return new GrayImage(pixels, w, h);
+        }
+    }
+}
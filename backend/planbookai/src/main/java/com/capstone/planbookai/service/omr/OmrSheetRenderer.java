@@ -0,0 +1,101 @@
+package com.capstone.planbookai.service.omr;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+// Vẽ phiếu trả lời theo OmrSheetLayout: phiếu trắng để in cho học sinh,
+// hoặc phiếu đã tô sẵn (dùng cho kiểm thử và benchmark nhận dạng).
+public final class OmrSheetRenderer {
+
+    // Chiều rộng mặc định ~ A4 ở 150 dpi
+    public static final int DEFAULT_WIDTH = 1240;
+
+    private OmrSheetRenderer() {
+    }
+
+    // marked[i] = vị trí ô được tô của câu i (0 = ô đầu tiên), số âm = bỏ trống; marked = null -> phiếu trắng
+    public static BufferedImage render(OmrSheetLayout layout, byte[] marked, int width, String title) {
+        double margin = width * 0.06;
+        double frameWidth = width - 2 * margin;
+        double frameHeight = frameWidth * OmrSheetLayout.ASPECT;
+        int height = (int) Math.ceil(frameHeight + 2 * margin);
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.BLACK);
+
+            // 4 dấu định vị ở 4 góc khung
+            double mark = OmrSheetLayout.MARK_SIZE * frameWidth;
+            for (int corner = 0; corner < 4; corner++) {
+                double cx = margin + (corner % 2) * frameWidth;
+                double cy = margin + (corner / 2) * frameHeight;
+                g.fill(new Rectangle2D.Double(cx - mark / 2, cy - mark / 2, mark, mark));
+            }
+
+            // Tiêu đề nằm giữa hai dấu phía trên, không chạm vào dấu
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, Math.max(10, (int) (frameWidth * 0.022))));
+            g.drawString("PHIẾU TRẢ LỜI TRẮC NGHIỆM", (float) (margin + frameWidth * 0.08), (float) (margin + frameHeight * 0.035));
+            if (title != null && !title.isBlank()) {
+                g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(9, (int) (frameWidth * 0.016))));
+                g.drawString(title, (float) (margin + frameWidth * 0.08), (float) (margin + frameHeight * 0.065));
+            }
+
+            double radius = layout.bubbleRadius() * frameWidth;
+            Font labelFont = new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(8, (int) (radius * 1.3)));
+            Font optionFont = new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(6, (int) (radius * 1.1)));
+            g.setStroke(new BasicStroke((float) Math.max(1.0, radius * 0.12)));
+
+            for (int q = 0; q < layout.questionCount(); q++) {
+                double cy = margin + layout.bubbleV(q) * frameHeight;
+                // Số thứ tự câu căn phải, sát ô đầu tiên
+                g.setFont(labelFont);
+                String label = (q + 1) + ".";
+                double labelRight = margin + layout.bubbleU(q, 0) * frameWidth - radius * 1.8;
+                g.drawString(label, (float) (labelRight - g.getFontMetrics().stringWidth(label)), (float) (cy + radius * 0.5));
+
+                int filled = marked != null && q < marked.length ? marked[q] : -1;
+                for (int k = 0; k < layout.options(); k++) {
+                    double cx = margin + layout.bubbleU(q, k) * frameWidth;
+                    Ellipse2D bubble = new Ellipse2D.Double(cx - radius, cy - radius, 2 * radius, 2 * radius);
+                    if (k == filled) {
+                        g.fill(bubble);
+                        continue;
+                    }
+                    g.draw(bubble);
+                    g.setFont(optionFont);
+                    FontMetrics fm = g.getFontMetrics();
+                    String letter = String.valueOf((char) ('A' + k));
+                    g.drawString(letter, (float) (cx - fm.stringWidth(letter) / 2.0), (float) (cy + fm.getAscent() * 0.35));
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    public static byte[] renderPng(OmrSheetLayout layout, String title) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(render(layout, null, DEFAULT_WIDTH, title), "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Không thể tạo ảnh phiếu trả lời", e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.capstone.planbookai.service.search;
+
+import java.util.regex.Pattern;
+
+// Nội dung câu hỏi/đáp án soạn bằng trình soạn thảo HTML: bỏ thẻ và thực thể (<p>, &nbsp;...)
+// trước khi tách từ, tạo shingle hay tóm tắt, để chúng không thành từ khóa "p", "nbsp"...
+public final class HtmlText {
+
+    private static final Pattern MARKUP = Pattern.compile("<[^>]*>|&[a-zA-Z]+;|&#\\d+;");
+
+    private HtmlText() {
+    }
+
+    // Thay thẻ/thực thể bằng khoảng trắng (giữ ranh giới từ); null -> null
+    public static String strip(String html) {
+        return html == null ? null : MARKUP.matcher(html).replaceAll(" ");
+    }
+}
@@ -0,0 +1,289 @@
+package com.capstone.planbookai.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Chỉ mục ngược trong bộ nhớ, xếp hạng BM25, lọc theo chủ đề và mức độ.
+// - Tài liệu được đánh số liên tiếp (docIndex); danh sách posting là mảng int nguyên thủy, luôn tăng dần.
+// - Sửa = đánh dấu bản cũ đã xóa + thêm bản mới; khi số bản đã xóa đủ lớn thì nén lại toàn bộ chỉ mục.
+// - Đọc song song (read lock), ghi tuần tự (write lock).
+public final class InvertedIndex {
+
+    public static final int ANY_LEVEL = -1;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Dữ liệu theo docIndex
+    private long[] ids = new long[1024];
+    private long[] topics = new long[1024];
+    private byte[] levels = new byte[1024];
+    private int[] lengths = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private int docCount;
+    private int deletedCount;
+    private long totalLength;
+
+    private final Map<Long, Integer> docById = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    public static final class Hit {
+        public final long id;
+        public final float score;
+
+        Hit(long id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    public static final class Result {
+        public final List<Hit> hits;
+        public final int totalMatches;
+
+        Result(List<Hit> hits, int totalMatches) {
+            this.hits = hits;
+            this.totalMatches = totalMatches;
+        }
+    }
+
+    // Thêm mới hoặc thay thế tài liệu có cùng id
+    public void put(long id, long topicId, int level, List<String> tokens) {
+        Map<String, Integer> termFreq = new HashMap<>();
+        for (String t : tokens) {
+            termFreq.merge(t, 1, Integer::sum);
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int doc = docCount++;
+            ensureCapacity(docCount);
+            ids[doc] = id;
+            topics[doc] = topicId;
+            levels[doc] = (byte) level;
+            lengths[doc] = tokens.size();
+            totalLength += tokens.size();
+            docById.put(id, doc);
+            for (Map.Entry<String, Integer> e : termFreq.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new Postings()).add(doc, e.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // topicId = null: mọi chủ đề; level = ANY_LEVEL: mọi mức độ
+    public Result search(List<String> queryTokens, Long topicId, int level, int limit) {
+        lock.readLock().lock();
+        try {
+            int live = docCount - deletedCount;
+            if (live == 0 || queryTokens.isEmpty() || limit <= 0) {
+                return new Result(List.of(), 0);
+            }
+            float avgLength = (float) totalLength / live;
+            float[] scores = new float[docCount];
+            int[] touched = new int[64];
+            int touchedCount = 0;
+
+            for (String term : new LinkedHashSet<>(queryTokens)) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                // df tính cả bản đã xóa chưa nén - sai số nhỏ, chấp nhận được
+                float idf = (float) Math.log(1 + (live - list.size + 0.5) / (list.size + 0.5));
+                if (idf <= 0) {
+                    idf = 0.01f;
+                }
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (deleted.get(doc)
+                            || (topicId != null && topics[doc] != topicId)
+                            || (level != ANY_LEVEL && levels[doc] != level)) {
+                        continue;
+                    }
+                    float tf = list.freqs[i];
+                    float norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                    if (scores[doc] == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = doc;
+                    }
+                    scores[doc] += idf * tf * (K1 + 1) / (tf + norm);
+                }
+            }
+
+            // Giữ limit tài liệu điểm cao nhất bằng min-heap trên mảng int (không boxing)
+            int[] heap = new int[Math.min(limit, touchedCount)];
+            int heapSize = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                if (heapSize < heap.length) {
+                    heap[heapSize] = doc;
+                    siftUp(heap, heapSize++, scores);
+                } else if (better(doc, heap[0], scores)) {
+                    heap[0] = doc;
+                    siftDown(heap, heapSize, scores);
+                }
+            }
+            List<Hit> hits = new ArrayList<>(heapSize);
+            while (heapSize > 0) {
+                int doc = heap[0];
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize, scores);
+                hits.add(new Hit(ids[doc], scores[doc]));
+            }
+            Collections.reverse(hits);
+            return new Result(hits, touchedCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Điểm cao hơn; bằng điểm thì ưu tiên tài liệu mới hơn (docIndex lớn hơn)
+    private static boolean better(int a, int b, float[] scores) {
+        return scores[a] != scores[b] ? scores[a] > scores[b] : a > b;
+    }
+
+    private static void siftUp(int[] heap, int i, float[] scores) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], heap[i], scores)) {
+                return;
+            }
+            int t = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = t;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] scores) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left + 1 < size && better(heap[left], heap[left + 1], scores) ? left + 1 : left;
+            if (!better(heap[i], heap[worst], scores)) {
+                return;
+            }
+            int t = heap[worst];
+            heap[worst] = heap[i];
+            heap[i] = t;
+            i = worst;
+        }
+    }
+
+    private void removeLocked(long id) {
+        Integer doc = docById.remove(id);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        totalLength -= lengths[doc];
+        if (deletedCount > 1024 && deletedCount * 4 > docCount) {
+            compactLocked();
+        }
+    }
+
+    // Bỏ hẳn các bản đã xóa, đánh số lại docIndex (thứ tự tương đối giữ nguyên nên posting vẫn tăng dần)
+    private void compactLocked() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = next;
+            ids[next] = ids[doc];
+            topics[next] = topics[doc];
+            levels[next] = levels[doc];
+            lengths[next] = lengths[doc];
+            next++;
+        }
+        postings.values().removeIf(list -> list.remap(remap) == 0);
+        for (Map.Entry<Long, Integer> e : docById.entrySet()) {
+            e.setValue(remap[e.getValue()]);
+        }
+        docCount = next;
+        deletedCount = 0;
+        deleted.clear();
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(size, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        topics = Arrays.copyOf(topics, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        short[] freqs = new short[4];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = (short) Math.min(freq, Short.MAX_VALUE);
+            size++;
+        }
+
+        int remap(int[] remap) {
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[n] = doc;
+                    freqs[n] = freqs[i];
+                    n++;
+                }
+            }
+            size = n;
+            if (docs.length > 16 && n < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(4, n));
+                freqs = Arrays.copyOf(freqs, Math.max(4, n));
+            }
+            return n;
+        }
+    }
+}
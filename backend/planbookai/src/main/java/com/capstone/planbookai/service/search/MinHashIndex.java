@@ -0,0 +1,289 @@
+package com.capstone.planbookai.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Chỉ mục phát hiện câu gần trùng: chữ ký MinHash trên tập shingle (2 âm tiết liên tiếp, đã bỏ dấu)
+// + LSH chia dải (BANDS dải x ROWS hàng). Hai câu chỉ được so sánh khi trùng ít nhất một dải,
+// nên tra cứu không phải duyệt toàn bộ ngân hàng câu hỏi.
+// - Mỗi giá trị MinHash chỉ giữ 16 bit thấp (b-bit MinHash): xác suất trùng ngẫu nhiên 1/65536, không đáng kể.
+// - Với 20 dải x 3 hàng, cặp có Jaccard 0.6 gần như chắc chắn thành ứng viên (~99%), cặp 0.2 chỉ ~15%.
+// - Sửa = đánh dấu bản cũ đã xóa + thêm bản mới; nén lại khi số bản đã xóa đủ lớn. Đọc song song, ghi tuần tự.
+public final class MinHashIndex {
+
+    public static final int HASHES = 60;
+    public static final int BANDS = 20;
+    private static final int ROWS = HASHES / BANDS;
+    private static final int SHINGLE = 2;
+
+    private static final long[] SEEDS = new long[HASHES];
+    private static final long[] BAND_SEEDS = new long[BANDS];
+
+    static {
+        // Seed cố định: chữ ký không phụ thuộc lần khởi động
+        SplittableRandom random = new SplittableRandom(0x5EEDL);
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = random.nextLong();
+        }
+        for (int b = 0; b < BANDS; b++) {
+            BAND_SEEDS[b] = random.nextLong();
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Dữ liệu theo slot
+    private long[] ids = new long[1024];
+    private char[] signatures = new char[1024 * HASHES];
+    private final BitSet deleted = new BitSet();
+    private int slotCount;
+    private int deletedCount;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    // Bảng băm dải: entry e = slot * BANDS + band, nối thành chuỗi qua next[]
+    private int[] heads = newHeads(1024 * BANDS);
+    private int[] entryKeys = new int[1024 * BANDS];
+    private int[] next = new int[1024 * BANDS];
+
+    public static final class Match {
+        public final long id;
+        public final float similarity;
+
+        Match(long id, float similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+    }
+
+    // Chữ ký của một câu hỏi gồm nhiều đoạn văn bản (nội dung, các đáp án); shingle không vượt qua ranh giới đoạn.
+    // Trả về null nếu không có từ nào.
+    public static char[] signature(List<String> texts) {
+        long[] mins = new long[HASHES];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        boolean any = false;
+        for (String text : texts) {
+            List<String> tokens = VietnameseTokenizer.tokenize(text);
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            any = true;
+            int windows = Math.max(1, tokens.size() - SHINGLE + 1);
+            for (int start = 0; start < windows; start++) {
+                long shingle = 0x9E3779B97F4A7C15L;
+                for (int t = start; t < Math.min(tokens.size(), start + SHINGLE); t++) {
+                    shingle = mix(shingle ^ tokens.get(t).hashCode()) * 31 + t - start;
+                }
+                for (int i = 0; i < HASHES; i++) {
+                    long h = mix(shingle ^ SEEDS[i]) >>> 1;
+                    if (h < mins[i]) {
+                        mins[i] = h;
+                    }
+                }
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        char[] signature = new char[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            signature[i] = (char) mins[i];
+        }
+        return signature;
+    }
+
+    // Ước lượng độ tương đồng Jaccard = tỉ lệ vị trí trùng nhau của hai chữ ký
+    public static float similarity(char[] a, int aOffset, char[] b, int bOffset) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[aOffset + i] == b[bOffset + i]) {
+                equal++;
+            }
+        }
+        return (float) equal / HASHES;
+    }
+
+    // Thêm mới hoặc thay thế câu hỏi có cùng id
+    public void put(long id, char[] signature) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (signature == null) {
+                return;
+            }
+            ensureCapacity(slotCount + 1);
+            int slot = slotCount++;
+            ids[slot] = id;
+            System.arraycopy(signature, 0, signatures, slot * HASHES, HASHES);
+            slotById.put(id, slot);
+            link(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public char[] signatureOf(long id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            return slot == null ? null : Arrays.copyOfRange(signatures, slot * HASHES, (slot + 1) * HASHES);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Các câu có độ tương đồng ước lượng >= minSimilarity, giảm dần; bỏ qua excludeId (chính câu đang xét)
+    public List<Match> findSimilar(char[] signature, float minSimilarity, int limit, long excludeId) {
+        if (signature == null || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int[] candidates = new int[16];
+            int candidateCount = 0;
+            for (int band = 0; band < BANDS; band++) {
+                int key = bandKey(signature, 0, band);
+                for (int e = heads[key & (heads.length - 1)]; e >= 0; e = next[e]) {
+                    if (entryKeys[e] != key || e % BANDS != band) {
+                        continue;
+                    }
+                    int slot = e / BANDS;
+                    if (deleted.get(slot) || ids[slot] == excludeId) {
+                        continue;
+                    }
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = slot;
+                }
+            }
+
+            // Một câu có thể trùng nhiều dải: sắp xếp rồi bỏ lặp trước khi so chữ ký đầy đủ
+            Arrays.sort(candidates, 0, candidateCount);
+            List<Match> matches = new ArrayList<>();
+            for (int i = 0; i < candidateCount; i++) {
+                int slot = candidates[i];
+                if (i > 0 && candidates[i - 1] == slot) {
+                    continue;
+                }
+                float s = similarity(signature, 0, signatures, slot * HASHES);
+                if (s >= minSimilarity) {
+                    matches.add(new Match(ids[slot], s));
+                }
+            }
+            matches.sort((a, b) -> a.similarity != b.similarity
+                    ? Float.compare(b.similarity, a.similarity) : Long.compare(b.id, a.id));
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(int slot) {
+        for (int band = 0; band < BANDS; band++) {
+            int e = slot * BANDS + band;
+            int key = bandKey(signatures, slot * HASHES, band);
+            int bucket = key & (heads.length - 1);
+            entryKeys[e] = key;
+            next[e] = heads[bucket];
+            heads[bucket] = e;
+        }
+    }
+
+    private static int bandKey(char[] signature, int offset, int band) {
+        long packed = 0;
+        for (int r = 0; r < ROWS; r++) {
+            packed = (packed << 16) | signature[offset + band * ROWS + r];
+        }
+        return (int) mix(packed ^ BAND_SEEDS[band]);
+    }
+
+    private void removeLocked(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        deleted.set(slot);
+        deletedCount++;
+        if (deletedCount > 1024 && deletedCount * 4 > slotCount) {
+            compactLocked();
+        }
+    }
+
+    // Bỏ hẳn các bản đã xóa, đánh số lại slot và dựng lại bảng băm dải
+    private void compactLocked() {
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (deleted.get(slot)) {
+                continue;
+            }
+            ids[live] = ids[slot];
+            System.arraycopy(signatures, slot * HASHES, signatures, live * HASHES, HASHES);
+            slotById.put(ids[live], live);
+            live++;
+        }
+        slotCount = live;
+        deletedCount = 0;
+        deleted.clear();
+        relinkAll();
+    }
+
+    private void relinkAll() {
+        Arrays.fill(heads, -1);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (!deleted.get(slot)) {
+                link(slot);
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(size, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        signatures = Arrays.copyOf(signatures, capacity * HASHES);
+        entryKeys = Arrays.copyOf(entryKeys, capacity * BANDS);
+        next = Arrays.copyOf(next, capacity * BANDS);
+        // Giữ hệ số tải <= 1 để chuỗi trong mỗi ô ngắn
+        heads = newHeads(capacity * BANDS);
+        relinkAll();
+    }
+
+    private static int[] newHeads(int entries) {
+        int[] table = new int[Integer.highestOneBit(Math.max(16, entries - 1)) << 1];
+        Arrays.fill(table, -1);
+        return table;
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
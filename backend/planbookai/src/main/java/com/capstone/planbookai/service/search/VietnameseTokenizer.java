@@ -0,0 +1,74 @@
+package com.capstone.planbookai.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Tách từ tiếng Việt cho tìm kiếm: mỗi âm tiết (chuỗi chữ/số liên tiếp) là một token,
+// chữ thường, bỏ dấu ("Phương trình" -> ["phuong", "trinh"], "Đạo hàm" -> ["dao", "ham"]).
+// Nhận cả văn bản dựng sẵn (NFC) lẫn tổ hợp (NFD): dấu rời được bỏ qua, không cắt token.
+public final class VietnameseTokenizer {
+
+    private static final int TABLE_START = 0x00C0;
+    private static final int TABLE_END = 0x1EFF;
+    // Bảng bỏ dấu dựng sẵn một lần cho dải Latin mở rộng (gồm toàn bộ chữ tiếng Việt)
+    private static final char[] FOLD = new char[TABLE_END - TABLE_START + 1];
+
+    static {
+        for (int c = TABLE_START; c <= TABLE_END; c++) {
+            String decomposed = Normalizer.normalize(String.valueOf((char) c), Normalizer.Form.NFD);
+            char base = decomposed.charAt(0);
+            boolean onlyMarks = true;
+            for (int i = 1; i < decomposed.length(); i++) {
+                if (Character.getType(decomposed.charAt(i)) != Character.NON_SPACING_MARK) {
+                    onlyMarks = false;
+                }
+            }
+            FOLD[c - TABLE_START] = onlyMarks ? Character.toLowerCase(base) : Character.toLowerCase((char) c);
+        }
+        FOLD['Đ' - TABLE_START] = 'd';
+        FOLD['đ' - TABLE_START] = 'd';
+    }
+
+    private VietnameseTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder(16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            char folded = fold(c);
+            if (Character.isLetterOrDigit(folded)) {
+                current.append(folded);
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    public static String fold(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    private static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+        if (c >= TABLE_START && c <= TABLE_END) {
+            return FOLD[c - TABLE_START];
+        }
+        return Character.toLowerCase(c);
+    }
+}
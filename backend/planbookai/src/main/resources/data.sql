@@ -31,4 +31,21 @@ VALUES (
 -- =================================================================================
 -- Phần này để trống. 
 -- File 'DataSeeder.java' sẽ tự động chạy sau khi server bật
--- để tạo 4 môn học và 400 câu hỏi như bạn yêu cầu.
\ No newline at end of file
+-- để tạo 4 môn học và 400 câu hỏi như bạn yêu cầu.
+
+-- =================================================================================
+-- 4. ĐỒNG BỘ SEQUENCE CỦA exam_question VÀ exams
+-- =================================================================================
+-- ExamQuestion và Exam dùng sequence pooled (bước 50), MySQL giả lập bằng bảng *_seq.
+-- Đẩy next_val vượt qua ID lớn nhất hiện có để không trùng với các dòng tạo bằng IDENTITY trước đây.
+INSERT INTO exam_question_seq (next_val)
+SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM exam_question_seq);
+
+UPDATE exam_question_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM exam_question));
+
+INSERT INTO exams_seq (next_val)
+SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM exams_seq);
+
+UPDATE exams_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM exams));
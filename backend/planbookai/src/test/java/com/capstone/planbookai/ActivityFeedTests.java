@@ -0,0 +1,83 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.dto.ActivityEvent;
+import com.capstone.planbookai.service.ActivityFeed;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ActivityFeedTests {
+
+	@Test
+	void keepsNewestEventsInPublishOrder() {
+		ActivityFeed feed = new ActivityFeed(new ObjectMapper(), 8, 60_000);
+		try {
+			feed.publish(ActivityEvent.Type.EXAM, 900L, "Đề thi mới được tạo", "Đề 1", "Mới tạo");
+			for (long i = 1; i <= 10; i++) {
+				feed.publish(ActivityEvent.Type.QUESTION, i, "Câu hỏi mới được thêm", "Câu " + i, "Mới thêm");
+			}
+			feed.publish(ActivityEvent.Type.RESULT, 5L, "Đã chấm bài thi", "HS: 1 - Điểm: 9.00", "Vừa chấm");
+
+			List<ActivityEvent> recent = feed.recent(6);
+			assertEquals(6, recent.size());
+			// Kết quả id 5 mới hơn câu hỏi id 10: sắp theo thứ tự phát sinh, không theo id
+			assertEquals(ActivityEvent.Type.RESULT, recent.get(0).getType());
+			assertEquals(List.of(10L, 9L, 8L, 7L, 6L),
+					recent.subList(1, 6).stream().map(ActivityEvent::getId).collect(Collectors.toList()));
+			// Vòng đệm 8 ô: sự kiện cũ nhất đã bị ghi đè
+			assertEquals(8, feed.recent(100).size());
+		} finally {
+			feed.shutdown();
+		}
+	}
+
+	@Test
+	void concurrentPublishersDoNotLoseOrDuplicateSlots() throws InterruptedException {
+		ActivityFeed feed = new ActivityFeed(new ObjectMapper(), 1024, 60_000);
+		try {
+			int threads = 4;
+			int perThread = 200;
+			CountDownLatch start = new CountDownLatch(1);
+			List<Thread> workers = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				long base = t * 1000L;
+				Thread worker = new Thread(() -> {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < perThread; i++) {
+						feed.publish(ActivityEvent.Type.QUESTION, base + i, "t", "d", "x");
+					}
+				});
+				worker.start();
+				workers.add(worker);
+			}
+			start.countDown();
+			for (Thread worker : workers) {
+				worker.join();
+			}
+
+			List<ActivityEvent> recent = feed.recent(threads * perThread);
+			assertEquals(threads * perThread, recent.size());
+			for (int i = 0; i < recent.size(); i++) {
+				assertEquals(threads * perThread - i, recent.get(i).getSeq());
+			}
+		} finally {
+			feed.shutdown();
+		}
+	}
+
+	@Test
+	void summarizeStripsMarkupAndTruncates() {
+		assertEquals("Tính giá trị của biểu thức", ActivityFeed.summarize("<p>Tính&nbsp;giá trị <b>của</b> biểu thức</p>"));
+		assertEquals(53, ActivityFeed.summarize("x".repeat(80)).length());
+	}
+}
@@ -0,0 +1,126 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.entity.Exam;
+import com.capstone.planbookai.entity.ExamQuestion;
+import com.capstone.planbookai.repository.ExamQuestionRepository;
+import com.capstone.planbookai.repository.ExamRepository;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// So sánh số round trip và độ trễ khi lưu exam_question: từng dòng với ID IDENTITY (cách cũ)
+// vs sequence pooled + batch JDBC (cách mới).
+// Chạy thủ công: mvn test -Dbenchmark=true -Dtest=ExamGenerationBenchmarkTests
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExamGenerationBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(ExamGenerationBenchmarkTests.class);
+
+	private static final int QUESTIONS = 50;
+	private static final int ROUNDS = 20;
+
+	@Autowired
+	private ExamRepository examRepo;
+
+	@Autowired
+	private ExamQuestionRepository examQuestionRepo;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void perRowVersusBatchedInserts() {
+		Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+		// Trước: ID IDENTITY buộc INSERT ngay khi persist -> mỗi câu hỏi một round trip
+		long[] perRow = run(stats, tx, examId -> {
+			for (int i = 0; i < QUESTIONS; i++) {
+				IdentityExamQuestion eq = new IdentityExamQuestion();
+				eq.examId = examId;
+				eq.questionId = (long) i + 1;
+				eq.answerOrder = "A,B,C,D";
+				entityManager.persist(eq);
+			}
+			entityManager.flush();
+		});
+		// Sau: ExamQuestion dùng sequence pooled, saveAll + một lần flush -> INSERT theo batch
+		long[] batched = run(stats, tx, examId -> {
+			List<ExamQuestion> rows = new ArrayList<>(QUESTIONS);
+			for (int i = 0; i < QUESTIONS; i++) {
+				ExamQuestion eq = new ExamQuestion();
+				eq.setExamId(examId);
+				eq.setQuestionId((long) i + 1);
+				eq.setAnswerOrder("A,B,C,D");
+				rows.add(eq);
+			}
+			examQuestionRepo.saveAll(rows);
+			examQuestionRepo.flush();
+		});
+
+		String report = String.format("exam_question x%d - IDENTITY per-row: %d statements, %.2f ms/exam"
+						+ " | sequence batched: %d statements, %.2f ms/exam",
+				QUESTIONS, perRow[0], perRow[1] / 1e6, batched[0], batched[1] / 1e6);
+		log.info(report);
+		assertTrue(batched[0] < perRow[0], "Batched path must use fewer JDBC statements: " + report);
+	}
+
+	// Trả về [số statement JDBC trung bình / đề, thời gian trung bình (ns) / đề]
+	private long[] run(Statistics stats, TransactionTemplate tx, LongConsumer writer) {
+		stats.clear();
+		long start = System.nanoTime();
+		for (int round = 0; round < ROUNDS; round++) {
+			tx.executeWithoutResult(status -> {
+				Exam exam = new Exam();
+				exam.setExamName("benchmark");
+				exam.setExamCode(UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+				exam = examRepo.save(exam);
+				writer.accept(exam.getId());
+				status.setRollbackOnly();
+			});
+		}
+		long elapsed = System.nanoTime() - start;
+		return new long[]{stats.getPrepareStatementCount() / ROUNDS, elapsed / ROUNDS};
+	}
+
+	// Bản sao exam_question với cách sinh ID cũ (IDENTITY), chỉ dùng làm mốc so sánh.
+	// Bảng riêng để không đụng tới cột id của exam_question thật.
+	@Entity
+	@Table(name = "exam_question_identity_benchmark")
+	static class IdentityExamQuestion {
+		@Id
+		@GeneratedValue(strategy = GenerationType.IDENTITY)
+		Long id;
+		Long examId;
+		Long questionId;
+		String answerOrder;
+	}
+}
@@ -0,0 +1,124 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.dto.ExamDetailResponse;
+import com.capstone.planbookai.dto.RenderExamResponse;
+import com.capstone.planbookai.entity.*;
+import com.capstone.planbookai.repository.*;
+import com.capstone.planbookai.service.ExamService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Số câu SQL khi dựng đề phải cố định, không tăng theo số câu hỏi trong đề
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class ExamQueryCountTests {
+
+	@Autowired
+	private ExamService examService;
+
+	@Autowired
+	private TopicRepository topicRepo;
+
+	@Autowired
+	private QuestionRepository questionRepo;
+
+	@Autowired
+	private ExamRepository examRepo;
+
+	@Autowired
+	private ExamQuestionRepository examQuestionRepo;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Test
+	void renderExamByCodeUsesConstantQueries() {
+		Exam small = createExam(5);
+		Exam large = createExam(40);
+
+		assertEquals(2, countStatements(() -> {
+			RenderExamResponse res = examService.renderExamByCode(small.getExamCode());
+			assertEquals(5, res.getQuestions().size());
+		}));
+		assertEquals(2, countStatements(() -> {
+			RenderExamResponse res = examService.renderExamByCode(large.getExamCode());
+			assertEquals(40, res.getQuestions().size());
+			assertEquals(4, res.getQuestions().get(0).answers.size());
+		}));
+	}
+
+	@Test
+	void examDetailUsesConstantQueries() {
+		Exam small = createExam(5);
+		Exam large = createExam(40);
+
+		assertEquals(2, countStatements(() -> {
+			ExamDetailResponse res = examService.getExamDetailById(small.getId());
+			assertEquals(5, res.getTotalQuestions().intValue());
+			assertEquals("query-count", res.getTopicTitle());
+		}));
+		assertEquals(2, countStatements(() -> {
+			ExamDetailResponse res = examService.getExamDetailById(large.getId());
+			assertEquals(40, res.getTotalQuestions().intValue());
+			assertEquals(Boolean.TRUE, res.getQuestions().get(0).answers.get(1).isCorrect);
+		}));
+	}
+
+	private long countStatements(Runnable action) {
+		entityManager.flush();
+		entityManager.clear();
+		Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		stats.clear();
+		action.run();
+		return stats.getPrepareStatementCount();
+	}
+
+	private Exam createExam(int questionCount) {
+		Topic topic = new Topic();
+		topic.setTitle("query-count");
+		topic = topicRepo.save(topic);
+
+		Exam exam = new Exam();
+		exam.setTopicId(topic.getId());
+		exam.setExamName("query-count");
+		exam.setExamCode(UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+		exam = examRepo.save(exam);
+
+		for (int i = 0; i < questionCount; i++) {
+			Question q = new Question();
+			q.setContent("Câu " + i);
+			q.setLevel(QuestionLevel.EASY);
+			q.setTopic(topic);
+			for (String code : new String[]{"A", "B", "C", "D"}) {
+				Answer a = new Answer();
+				a.setCode(code);
+				a.setContent("Phương án " + code);
+				a.setIsCorrect("A".equals(code));
+				a.setQuestion(q);
+				q.getAnswers().add(a);
+			}
+			q = questionRepo.save(q);
+
+			ExamQuestion eq = new ExamQuestion();
+			eq.setExamId(exam.getId());
+			eq.setQuestionId(q.getId());
+			eq.setAnswerOrder("B,A,D,C");
+			examQuestionRepo.save(eq);
+		}
+		return exam;
+	}
+}
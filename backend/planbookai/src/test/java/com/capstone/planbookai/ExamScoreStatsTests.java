@@ -0,0 +1,86 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.dto.ExamStatisticsResponse;
+import com.capstone.planbookai.service.ExamScoreStats;
+import com.capstone.planbookai.service.ScoreQuantileSketch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExamScoreStatsTests {
+
+	private static final double BOUND = ScoreQuantileSketch.ERROR_BOUND + 1e-9;
+
+	@Test
+	void quantilesStayWithinErrorBoundOfExactSort() {
+		Random random = new Random(7);
+		double[] scores = new double[20_000];
+		ExamScoreStats stats = new ExamScoreStats();
+		for (int i = 0; i < scores.length; i++) {
+			// Điểm liên tục (không làm tròn) lệch về phía điểm cao, kẹp trong [0, 10]
+			scores[i] = Math.max(0, Math.min(10, 6.5 + random.nextGaussian() * 2));
+			stats.record(scores[i]);
+		}
+		Arrays.sort(scores);
+
+		ExamStatisticsResponse res = stats.toResponse(1L);
+
+		assertEquals(exactQuantile(scores, 0.1), res.getP10Score(), BOUND);
+		assertEquals(exactQuantile(scores, 0.25), res.getP25Score(), BOUND);
+		assertEquals(exactQuantile(scores, 0.5), res.getMedianScore(), BOUND);
+		assertEquals(exactQuantile(scores, 0.75), res.getP75Score(), BOUND);
+		assertEquals(exactQuantile(scores, 0.9), res.getP90Score(), BOUND);
+	}
+
+	@Test
+	void percentileRanksMatchExactSort() {
+		Random random = new Random(11);
+		double[] scores = new double[5_000];
+		ExamScoreStats continuous = new ExamScoreStats();
+		ExamScoreStats graded = new ExamScoreStats();
+		double[] gradedScores = new double[scores.length];
+		for (int i = 0; i < scores.length; i++) {
+			scores[i] = random.nextDouble() * 10;
+			continuous.record(scores[i]);
+			// Điểm thật thường theo bước 0.25 (đề 40 câu): mỗi điểm rơi đúng một ô của sketch
+			gradedScores[i] = Math.round(scores[i] * 4) / 4.0;
+			graded.record(gradedScores[i]);
+		}
+
+		for (double s = 0; s <= 10; s += 0.25) {
+			assertEquals(exactRank(gradedScores, s, s), graded.percentileRank(s), 1e-9, "score=" + s);
+
+			// Điểm liên tục: mỗi ô rộng 2 * ERROR_BOUND, nên thứ hạng chỉ lệch do các điểm
+			// nằm trong khoảng ERROR_BOUND quanh ô chứa s
+			double rank = continuous.percentileRank(s);
+			double lower = exactRank(scores, s - 2 * BOUND, s - 2 * BOUND);
+			double upper = exactRank(scores, s + 2 * BOUND, s + 2 * BOUND);
+			assertTrue(rank >= lower - 1e-9 && rank <= upper + 1e-9,
+					"score=" + s + ": " + rank + " not in [" + lower + ", " + upper + "]");
+		}
+	}
+
+	// Nearest-rank trên mảng đã sắp xếp, cùng định nghĩa với ScoreQuantileSketch.quantile
+	private static double exactQuantile(double[] sorted, double q) {
+		int rank = Math.max(1, (int) Math.ceil(q * sorted.length));
+		return sorted[rank - 1];
+	}
+
+	// % bài có điểm < low, cộng một nửa số bài trong [low, high]
+	private static double exactRank(double[] scores, double low, double high) {
+		long below = 0;
+		long equal = 0;
+		for (double x : scores) {
+			if (x < low) {
+				below++;
+			} else if (x <= high) {
+				equal++;
+			}
+		}
+		return (below + equal / 2.0) * 100.0 / scores.length;
+	}
+}
@@ -0,0 +1,110 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.service.ai.GeminiRestModel;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Server giả lập Gemini trên cổng cục bộ: trả lời sau STUB_DELAY_MS, lặp lại prompt trong phần văn bản
+class GeminiRestModelTests {
+
+	private static final long STUB_DELAY_MS = 300;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final AtomicReference<String> lastPath = new AtomicReference<>();
+	private final AtomicReference<String> lastKey = new AtomicReference<>();
+	private HttpServer server;
+	private GeminiRestModel model;
+
+	@BeforeEach
+	void startStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newFixedThreadPool(64));
+		server.createContext("/", exchange -> {
+			lastPath.set(exchange.getRequestURI().getPath());
+			lastKey.set(exchange.getRequestHeaders().getFirst("x-goog-api-key"));
+			JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+			String prompt = request.path("contents").path(0).path("parts").path(0).path("text").asText();
+			try {
+				Thread.sleep(STUB_DELAY_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			int status = prompt.equals("fail") ? 429 : 200;
+			ObjectNode response = objectMapper.createObjectNode();
+			if (status == 200) {
+				// Văn bản chia làm hai phần, bọc trong khối ```json như mô hình thật hay trả về
+				ArrayNode parts = response.putArray("candidates").addObject().putObject("content").putArray("parts");
+				parts.addObject().put("text", "```json\n{\"question\": ");
+				parts.addObject().put("text", objectMapper.writeValueAsString(prompt) + "}\n```");
+			} else {
+				response.putObject("error").put("message", "quota");
+			}
+			String body = objectMapper.writeValueAsString(response);
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		});
+		server.start();
+		String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+		model = new GeminiRestModel(objectMapper, "test-key", baseUrl, "stub-model", 10_000, 2);
+	}
+
+	@AfterEach
+	void stopStub() {
+		model.shutdown();
+		server.stop(0);
+		((ExecutorService) server.getExecutor()).shutdownNow();
+	}
+
+	@Test
+	void joinsCandidatePartsAndSendsKeyHeader() {
+		String text = model.generate("Câu hỏi về oxi").join();
+		assertEquals("```json\n{\"question\": \"Câu hỏi về oxi\"}\n```", text);
+		assertEquals("/v1beta/models/stub-model:generateContent", lastPath.get());
+		assertEquals("test-key", lastKey.get());
+	}
+
+	@Test
+	void failsFutureOnErrorStatus() {
+		CompletionException e = assertThrows(CompletionException.class, () -> model.generate("fail").join());
+		assertTrue(e.getCause().getMessage().contains("429"));
+	}
+
+	@Test
+	void concurrentCallsDoNotHoldThreadsWhileWaiting() {
+		// 32 lời gọi cùng lúc, client chỉ có 2 luồng: nếu mỗi lời gọi giữ một luồng thì mất ~16 x STUB_DELAY_MS
+		long start = System.nanoTime();
+		List<CompletableFuture<String>> futures = new ArrayList<>();
+		for (int i = 0; i < 32; i++) {
+			futures.add(model.generate("q" + i));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+		assertTrue(elapsedMs < 8 * STUB_DELAY_MS, "elapsed " + elapsedMs + " ms");
+		assertTrue(futures.get(31).join().contains("q31"));
+	}
+}
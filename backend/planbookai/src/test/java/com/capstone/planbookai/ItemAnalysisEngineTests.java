@@ -0,0 +1,41 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.service.ItemAnalysisEngine;
+import com.capstone.planbookai.service.ResponseSheetCodec;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemAnalysisEngineTests {
+
+	@Test
+	void computesDifficultyDiscriminationAndDistractors() {
+		// 4 học sinh x 3 câu, đáp án đúng: A, B, C
+		byte[] key = {0, 1, 2};
+		byte[][] byStudent = {
+				{0, 1, 2},
+				{0, 1, 3},
+				{0, 2, ResponseSheetCodec.BLANK},
+				{1, 2, 3},
+		};
+		int students = byStudent.length;
+		byte[] selections = new byte[students * key.length];
+		for (int i = 0; i < students; i++) {
+			for (int j = 0; j < key.length; j++) {
+				selections[j * students + i] = byStudent[i][j];
+			}
+		}
+
+		ItemAnalysisEngine.ItemStats[] stats = ItemAnalysisEngine.analyze(selections, students, key.length, key);
+
+		assertEquals(0.75, stats[0].difficulty, 1e-9);
+		assertEquals(0.5, stats[1].difficulty, 1e-9);
+		assertEquals(0.25, stats[2].difficulty, 1e-9);
+		// Học sinh giỏi làm đúng, học sinh yếu làm sai -> phân biệt dương
+		assertTrue(stats[1].discrimination > 0);
+		assertEquals(2, stats[1].optionCounts[2]);
+		assertEquals(1, stats[2].optionCounts[ItemAnalysisEngine.BLANK_SLOT]);
+		assertEquals(2, stats[2].optionCounts[3]);
+	}
+}
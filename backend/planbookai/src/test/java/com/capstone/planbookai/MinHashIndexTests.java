@@ -0,0 +1,52 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.service.search.MinHashIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinHashIndexTests {
+
+	private static final List<String> OXI = List.of(
+			"Trong phòng thí nghiệm, khí oxi được điều chế bằng cách nhiệt phân chất nào sau đây?",
+			"KMnO4", "CaCO3", "NaCl", "H2O");
+
+	@Test
+	void findsRewordedQuestionButNotRelatedOnes() {
+		MinHashIndex index = new MinHashIndex();
+		index.put(1, MinHashIndex.signature(OXI));
+		index.put(2, MinHashIndex.signature(List.of(
+				"Trong công nghiệp, khí oxi được sản xuất bằng cách nào sau đây?",
+				"Chưng cất phân đoạn không khí lỏng", "Nhiệt phân KMnO4", "Điện phân NaCl", "Nhiệt phân CaCO3")));
+		index.put(3, MinHashIndex.signature(List.of(
+				"Giải phương trình x^2 - 5x + 6 = 0", "x = 2 hoặc x = 3", "x = 1", "x = -2", "vô nghiệm")));
+
+		// Đổi vài từ, bỏ dấu, đảo thứ tự phương án
+		List<MinHashIndex.Match> matches = index.findSimilar(MinHashIndex.signature(List.of(
+				"Trong phong thi nghiem, khi oxi co the duoc dieu che bang cach nhiet phan chat nao duoi day?",
+				"NaCl", "H2O", "KMnO4", "CaCO3")), 0.6f, 10, -1);
+		assertEquals(1, matches.size());
+		assertEquals(1, matches.get(0).id);
+
+		// Cùng dạng bài nhưng khác số liệu: không coi là trùng
+		assertTrue(index.findSimilar(MinHashIndex.signature(List.of(
+				"Giải phương trình x^2 - 7x + 12 = 0", "x = 3 hoặc x = 4", "x = 1", "x = -3", "vô nghiệm")), 0.6f, 10, -1).isEmpty());
+	}
+
+	@Test
+	void updatesAndRemovals() {
+		MinHashIndex index = new MinHashIndex();
+		index.put(1, MinHashIndex.signature(OXI));
+		index.put(2, MinHashIndex.signature(OXI));
+		assertEquals(1, index.findSimilar(index.signatureOf(1), 0.9f, 10, 1).size());
+
+		index.put(2, MinHashIndex.signature(List.of("Hình chóp tứ giác đều có bao nhiêu mặt?")));
+		assertTrue(index.findSimilar(index.signatureOf(1), 0.9f, 10, 1).isEmpty());
+		index.remove(1);
+		assertTrue(index.findSimilar(MinHashIndex.signature(OXI), 0.5f, 10, -1).isEmpty());
+		assertEquals(1, index.size());
+	}
+}
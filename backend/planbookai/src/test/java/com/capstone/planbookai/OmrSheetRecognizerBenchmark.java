@@ -0,0 +1,66 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.service.omr.OmrSheetLayout;
+import com.capstone.planbookai.service.omr.OmrSheetRecognizer;
+import com.capstone.planbookai.service.omr.OmrSheetRenderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// JMH: thời gian nhận dạng một phiếu (mục tiêu < 100 ms/phiếu) trên ảnh quét giả lập.
+// scale 1 ~ 150 dpi, scale 2 ~ 300 dpi.
+// Chạy thủ công: mvn test -Dbenchmark=true -Dtest=OmrSheetRecognizerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OmrSheetRecognizerBenchmark {
+
+	private static final double TARGET_MS = 100;
+
+	@Param({"40", "100"})
+	public int questions;
+
+	@Param({"1", "2"})
+	public int scale;
+
+	private OmrSheetLayout layout;
+	private BufferedImage scan;
+
+	@Setup
+	public void setUp() {
+		layout = OmrSheetLayout.forExam(questions, 4);
+		byte[] marked = OmrSheetRecognizerTests.randomMarks(layout, questions);
+		BufferedImage sheet = OmrSheetRenderer.render(layout, marked, OmrSheetRenderer.DEFAULT_WIDTH, "benchmark");
+		scan = OmrSheetRecognizerTests.scan(sheet, 2.5, scale, 7);
+	}
+
+	@Benchmark
+	public byte[] readSheet() {
+		return OmrSheetRecognizer.read(scan, layout);
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+	void runBenchmark() throws RunnerException {
+		Collection<RunResult> results = new Runner(new OptionsBuilder()
+				.include(OmrSheetRecognizerBenchmark.class.getSimpleName())
+				.build()).run();
+		for (RunResult result : results) {
+			double ms = result.getPrimaryResult().getScore();
+			assertTrue(ms < TARGET_MS, "OMR " + result.getParams() + ": " + ms + " ms/phiếu, vượt mục tiêu " + TARGET_MS + " ms");
+		}
+	}
+}
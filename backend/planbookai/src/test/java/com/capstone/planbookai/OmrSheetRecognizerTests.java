@@ -0,0 +1,97 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.service.ResponseSheetCodec;
+import com.capstone.planbookai.service.omr.OmrSheetLayout;
+import com.capstone.planbookai.service.omr.OmrSheetRecognizer;
+import com.capstone.planbookai.service.omr.OmrSheetRenderer;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OmrSheetRecognizerTests {
+
+	@Test
+	void readsRenderedSheet() {
+		OmrSheetLayout layout = OmrSheetLayout.forExam(40, 4);
+		byte[] marked = randomMarks(layout, 1);
+
+		BufferedImage sheet = OmrSheetRenderer.render(layout, marked, OmrSheetRenderer.DEFAULT_WIDTH, "test");
+
+		assertArrayEquals(marked, OmrSheetRecognizer.read(sheet, layout));
+	}
+
+	@Test
+	void readsSkewedHighResolutionScan() {
+		OmrSheetLayout layout = OmrSheetLayout.forExam(100, 5);
+		byte[] marked = randomMarks(layout, 2);
+
+		BufferedImage sheet = OmrSheetRenderer.render(layout, marked, OmrSheetRenderer.DEFAULT_WIDTH, "test");
+		BufferedImage scan = scan(sheet, 3.0, 2.0, 3);
+
+		assertArrayEquals(marked, OmrSheetRecognizer.read(scan, layout));
+	}
+
+	@Test
+	void reportsMultipleMarksAsInvalid() {
+		OmrSheetLayout layout = OmrSheetLayout.forExam(2, 4);
+		BufferedImage sheet = OmrSheetRenderer.render(layout, new byte[]{1, ResponseSheetCodec.BLANK}, OmrSheetRenderer.DEFAULT_WIDTH, null);
+		// Tô thêm ô D của câu 1
+		BufferedImage twice = OmrSheetRenderer.render(layout, new byte[]{3, ResponseSheetCodec.BLANK}, OmrSheetRenderer.DEFAULT_WIDTH, null);
+		BufferedImage merged = darkest(sheet, twice);
+
+		byte[] read = OmrSheetRecognizer.read(merged, layout);
+
+		assertEquals(ResponseSheetCodec.INVALID, read[0]);
+		assertEquals(ResponseSheetCodec.BLANK, read[1]);
+	}
+
+	static byte[] randomMarks(OmrSheetLayout layout, long seed) {
+		Random random = new Random(seed);
+		byte[] marked = new byte[layout.questionCount()];
+		for (int i = 0; i < marked.length; i++) {
+			// Khoảng 1/10 số câu bỏ trống
+			marked[i] = random.nextInt(10) == 0 ? ResponseSheetCodec.BLANK : (byte) random.nextInt(layout.options());
+		}
+		return marked;
+	}
+
+	// Giả lập ảnh quét: nghiêng, phóng to, nền giấy ngả màu và nhiễu hạt
+	static BufferedImage scan(BufferedImage sheet, double degrees, double scale, long seed) {
+		int width = (int) (sheet.getWidth() * scale * 1.05);
+		int height = (int) (sheet.getHeight() * scale * 1.05);
+		BufferedImage scan = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = scan.createGraphics();
+		g.setColor(new Color(235, 232, 220));
+		g.fillRect(0, 0, width, height);
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.translate(width / 2.0, height / 2.0);
+		g.rotate(Math.toRadians(degrees));
+		g.scale(scale, scale);
+		g.translate(-sheet.getWidth() / 2.0, -sheet.getHeight() / 2.0);
+		g.drawImage(sheet, 0, 0, null);
+		g.dispose();
+
+		Random random = new Random(seed);
+		for (int i = 0; i < width * height / 50; i++) {
+			scan.setRGB(random.nextInt(width), random.nextInt(height), random.nextBoolean() ? 0x404040 : 0xFFFFFF);
+		}
+		return scan;
+	}
+
+	private static BufferedImage darkest(BufferedImage a, BufferedImage b) {
+		BufferedImage out = new BufferedImage(a.getWidth(), a.getHeight(), BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < a.getHeight(); y++) {
+			for (int x = 0; x < a.getWidth(); x++) {
+				out.setRGB(x, y, Math.min(a.getRGB(x, y) & 0xFF, b.getRGB(x, y) & 0xFF) * 0x010101);
+			}
+		}
+		return out;
+	}
+}
@@ -0,0 +1,91 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.entity.QuestionLevel;
+import com.capstone.planbookai.service.importer.ImportRecord;
+import com.capstone.planbookai.service.importer.QuestionRecordReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionImportReaderTests {
+
+	@Test
+	void readsCsvWithQuotedMultilineCells() throws IOException {
+		String csv = "\uFEFFtopicId,level,content,A,B,C,D,correct\r\n"
+				+ "3,easy,\"Chọn phát biểu đúng:\nhai dòng, có dấu phẩy\",Một,Hai,\"Ba \"\"trích\"\"\",Bốn,B\r\n"
+				+ ",HARD,Câu không có chủ đề,X,Y,,,\"A,B\"\r\n"
+				+ "\r\n"
+				+ "1,ABC,Mức độ sai,X,Y,,,A\r\n";
+		List<ImportRecord> records = readAll(QuestionRecordReader.Format.CSV, csv);
+		assertEquals(3, records.size());
+
+		ImportRecord first = records.get(0);
+		assertEquals(1, first.row);
+		assertEquals(Long.valueOf(3), first.question.getTopicId());
+		assertEquals(QuestionLevel.EASY, first.question.getLevel());
+		assertEquals("Chọn phát biểu đúng:\nhai dòng, có dấu phẩy", first.question.getContent());
+		assertEquals(4, first.question.getAnswers().size());
+		assertEquals("Ba \"trích\"", first.question.getAnswers().get(2).getContent());
+		assertTrue(first.question.getAnswers().get(1).getIsCorrect());
+
+		assertNull(records.get(1).question.getTopicId());
+		assertEquals(2, records.get(1).question.getAnswers().stream().filter(a -> a.getIsCorrect()).count());
+		assertNotNull(records.get(2).error);
+	}
+
+	@Test
+	void readsAikenAndReportsMissingAnswerLine() throws IOException {
+		String aiken = "Thủ đô của Việt Nam là\n"
+				+ "A. Hà Nội\n"
+				+ "B) Huế\n"
+				+ "ANSWER: A\n"
+				+ "\n"
+				+ "Câu thiếu đáp án\n"
+				+ "A. Một\n"
+				+ "B. Hai\n"
+				+ "Nước sôi ở bao nhiêu độ C\n"
+				+ "(ở áp suất thường)?\n"
+				+ "A. 90\n"
+				+ "B. 100\n"
+				+ "ANSWER: B\n";
+		List<ImportRecord> records = readAll(QuestionRecordReader.Format.AIKEN, aiken);
+		assertEquals(3, records.size());
+		assertEquals("Hà Nội", records.get(0).question.getAnswers().get(0).getContent());
+		assertTrue(records.get(0).question.getAnswers().get(0).getIsCorrect());
+		assertNotNull(records.get(1).error);
+		assertEquals(3, records.get(2).row);
+		assertEquals("Nước sôi ở bao nhiêu độ C\n(ở áp suất thường)?", records.get(2).question.getContent());
+		assertTrue(records.get(2).question.getAnswers().get(1).getIsCorrect());
+	}
+
+	@Test
+	void badJsonElementDoesNotStopTheRest() throws IOException {
+		String json = "[{\"topicId\": 1, \"level\": \"EASY\", \"content\": \"Câu 1\", \"answers\": [{\"code\": \"A\", \"content\": \"x\", \"isCorrect\": true}]},"
+				+ " {\"topicId\": 1, \"level\": \"RẤT KHÓ\", \"content\": \"Câu 2\"},"
+				+ " {\"topicId\": 2, \"content\": \"Câu 3\"}]";
+		List<ImportRecord> records = readAll(QuestionRecordReader.Format.JSON, json);
+		assertEquals(3, records.size());
+		assertNull(records.get(0).error);
+		assertNotNull(records.get(1).error);
+		assertEquals("Câu 3", records.get(2).question.getContent());
+	}
+
+	private static List<ImportRecord> readAll(QuestionRecordReader.Format format, String text) throws IOException {
+		List<ImportRecord> records = new ArrayList<>();
+		try (QuestionRecordReader reader = QuestionRecordReader.open(
+				format, new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), new ObjectMapper())) {
+			ImportRecord record;
+			while ((record = reader.next()) != null) {
+				records.add(record);
+			}
+		}
+		return records;
+	}
+}
@@ -0,0 +1,53 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.entity.QuestionLevel;
+import com.capstone.planbookai.service.QuestionSearchIndex;
+import com.capstone.planbookai.service.search.InvertedIndex;
+import com.capstone.planbookai.service.search.VietnameseTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuestionSearchIndexTests {
+
+	@Test
+	void foldsVietnameseDiacritics() {
+		assertEquals(List.of("phuong", "trinh", "duong", "tron"), VietnameseTokenizer.tokenize("Phương trình ĐƯỜNG TRÒN"));
+		// Văn bản dạng tổ hợp (NFD) cho cùng kết quả
+		assertEquals(List.of("dao", "ham"), VietnameseTokenizer.tokenize("Đạo hàm"));
+	}
+
+	@Test
+	void ranksByRelevanceAndFilters() {
+		InvertedIndex index = new InvertedIndex();
+		index.put(1, 10, 0, VietnameseTokenizer.tokenize("Giải phương trình bậc hai"));
+		index.put(2, 10, 1, VietnameseTokenizer.tokenize("Tính đạo hàm của hàm số bậc ba"));
+		index.put(3, 20, 0, VietnameseTokenizer.tokenize("Phương trình đường tròn"));
+
+		InvertedIndex.Result result = index.search(VietnameseTokenizer.tokenize("phuong trinh bac hai"), null, InvertedIndex.ANY_LEVEL, 10);
+		assertEquals(3, result.totalMatches);
+		assertEquals(1, result.hits.get(0).id);
+
+		assertEquals(1, index.search(VietnameseTokenizer.tokenize("phương trình"), 20L, InvertedIndex.ANY_LEVEL, 10).hits.size());
+		assertEquals(2, index.search(VietnameseTokenizer.tokenize("bậc"), null, 1, 10).hits.get(0).id);
+
+		// Sửa nội dung: bản cũ không còn khớp
+		index.put(1, 10, 0, VietnameseTokenizer.tokenize("Hình chóp tứ giác đều"));
+		assertEquals(0, index.search(VietnameseTokenizer.tokenize("bac hai"), 10L, 0, 10).totalMatches);
+		index.remove(3);
+		assertEquals(0, index.search(VietnameseTokenizer.tokenize("duong tron"), null, InvertedIndex.ANY_LEVEL, 10).totalMatches);
+	}
+
+	@Test
+	void doesNotIndexHtmlMarkup() {
+		QuestionSearchIndex index = new QuestionSearchIndex(null);
+		index.put(1L, 10L, QuestionLevel.EASY,
+				List.of("<p><strong>Giải</strong>&nbsp;phương trình</p>", "<span>x = 2</span>"));
+
+		assertEquals(0, index.search("p strong nbsp span", null, null, 10).totalMatches);
+		assertEquals(1, index.search("giai phuong trinh", null, null, 10).totalMatches);
+	}
+}
@@ -0,0 +1,140 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.entity.*;
+import com.capstone.planbookai.payload.request.QuestionRequest;
+import com.capstone.planbookai.payload.request.QuestionUpdateRequest;
+import com.capstone.planbookai.repository.*;
+import com.capstone.planbookai.service.QuestionService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sửa câu hỏi phải giữ nguyên id các đáp án không đổi, chỉ thêm/xóa phần khác biệt
+@SpringBootTest
+@Transactional
+class QuestionUpdateTests {
+
+	@Autowired
+	private QuestionService questionService;
+
+	@Autowired
+	private TopicRepository topicRepo;
+
+	@Autowired
+	private QuestionRepository questionRepo;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Test
+	void updateKeepsAnswerIdsAndAppliesOnlyDifferences() {
+		Question q = createQuestion();
+		Map<String, Long> before = answerIds(q);
+
+		Question edit = new Question();
+		edit.setContent(q.getContent());
+		edit.setLevel(QuestionLevel.MEDIUM);
+		edit.setTopic(q.getTopic());
+		edit.setAnswers(new ArrayList<>(List.of(
+				answer(null, "A", "Phương án A", true),
+				answer(before.get("B"), "B", "Phương án B (sửa)", false),
+				answer(null, "C", "Phương án C", false),
+				answer(null, "E", "Phương án mới", false))));
+		questionService.updateQuestion(q.getId(), edit);
+		entityManager.flush();
+		entityManager.clear();
+
+		Question reloaded = questionRepo.findById(q.getId()).orElseThrow();
+		Map<String, Long> after = answerIds(reloaded);
+		assertEquals(QuestionLevel.MEDIUM, reloaded.getLevel());
+		assertEquals(4, after.size());
+		assertEquals(before.get("A"), after.get("A"));
+		assertEquals(before.get("B"), after.get("B"));
+		assertEquals(before.get("C"), after.get("C"));
+		assertFalse(after.containsKey("D"));
+		assertNotNull(after.get("E"));
+	}
+
+	@Test
+	void bulkUpdateLeavesNullFieldsUntouched() {
+		Question first = createQuestion();
+		Question second = createQuestion();
+		Map<String, Long> secondIds = answerIds(second);
+
+		QuestionUpdateRequest a = new QuestionUpdateRequest();
+		a.setId(first.getId());
+		a.setContent("Nội dung mới");
+		QuestionUpdateRequest b = new QuestionUpdateRequest();
+		b.setId(second.getId());
+		QuestionRequest.AnswerDTO correctD = new QuestionRequest.AnswerDTO();
+		correctD.setCode("D");
+		correctD.setContent("Phương án D");
+		correctD.setIsCorrect(true);
+		List<QuestionRequest.AnswerDTO> answers = new ArrayList<>();
+		for (String code : new String[]{"A", "B", "C"}) {
+			QuestionRequest.AnswerDTO dto = new QuestionRequest.AnswerDTO();
+			dto.setCode(code);
+			dto.setContent("Phương án " + code);
+			dto.setIsCorrect(false);
+			answers.add(dto);
+		}
+		answers.add(correctD);
+		b.setAnswers(answers);
+
+		questionService.updateQuestions(List.of(a, b));
+		entityManager.flush();
+		entityManager.clear();
+
+		Question firstAfter = questionRepo.findById(first.getId()).orElseThrow();
+		assertEquals("Nội dung mới", firstAfter.getContent());
+		assertEquals(4, firstAfter.getAnswers().size());
+		Question secondAfter = questionRepo.findById(second.getId()).orElseThrow();
+		assertEquals(secondIds, answerIds(secondAfter));
+		assertTrue(secondAfter.getAnswers().stream().anyMatch(x -> "D".equals(x.getCode()) && x.getIsCorrect()));
+		assertTrue(secondAfter.getAnswers().stream().anyMatch(x -> "A".equals(x.getCode()) && !x.getIsCorrect()));
+	}
+
+	private Question createQuestion() {
+		Topic topic = new Topic();
+		topic.setTitle("question-update");
+		topic = topicRepo.save(topic);
+
+		Question q = new Question();
+		q.setContent("Câu hỏi sửa");
+		q.setLevel(QuestionLevel.EASY);
+		q.setTopic(topic);
+		for (String code : new String[]{"A", "B", "C", "D"}) {
+			Answer a = answer(null, code, "Phương án " + code, "A".equals(code));
+			a.setQuestion(q);
+			q.getAnswers().add(a);
+		}
+		q = questionRepo.save(q);
+		entityManager.flush();
+		return q;
+	}
+
+	private static Answer answer(Long id, String code, String content, boolean correct) {
+		Answer a = new Answer();
+		a.setId(id);
+		a.setCode(code);
+		a.setContent(content);
+		a.setIsCorrect(correct);
+		return a;
+	}
+
+	private static Map<String, Long> answerIds(Question q) {
+		Map<String, Long> ids = new HashMap<>();
+		q.getAnswers().forEach(a -> ids.put(a.getCode(), a.getId()));
+		return ids;
+	}
+}
@@ -0,0 +1,47 @@
+package com.capstone.planbookai;
+
+import com.capstone.planbookai.service.ResponseSheetCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseSheetCodecTests {
+
+	@Test
+	void roundTripsBlankInvalidAndEveryCode() {
+		byte[] selections = {0, 1, 2, 3, 4, 5, ResponseSheetCodec.BLANK, ResponseSheetCodec.INVALID};
+
+		byte[] packed = ResponseSheetCodec.encode(selections);
+
+		assertEquals(3, packed.length);
+		assertArrayEquals(selections, ResponseSheetCodec.decode(packed, selections.length));
+	}
+
+	@Test
+	void mapsOutOfRangeCodesToInvalid() {
+		byte[] packed = ResponseSheetCodec.encode(new byte[]{6, 42, -7});
+
+		assertArrayEquals(new byte[]{ResponseSheetCodec.INVALID, ResponseSheetCodec.INVALID, ResponseSheetCodec.INVALID},
+				ResponseSheetCodec.decode(packed, 3));
+	}
+
+	@Test
+	void roundTripsCountsThatDoNotFillTheLastByte() {
+		// 3 bit/câu: chỉ bội số của 8 câu mới lấp đầy byte cuối, các số còn lại có câu nằm vắt qua hai byte
+		Random random = new Random(12);
+		for (int count = 0; count <= 41; count++) {
+			byte[] selections = new byte[count];
+			for (int i = 0; i < count; i++) {
+				selections[i] = (byte) (random.nextInt(8) - 2); // INVALID, BLANK, A..F
+			}
+
+			byte[] packed = ResponseSheetCodec.encode(selections);
+
+			assertEquals(ResponseSheetCodec.packedLength(count), packed.length);
+			assertArrayEquals(selections, ResponseSheetCodec.decode(packed, count), "count=" + count);
+		}
+	}
+}
@@ -76,4 +76,5 @@ axiosInstance.interceptors.response.use(
     }
 );
 
+export { API_BASE_URL };
 export default axiosInstance;
\ No newline at end of file
@@ -11,7 +11,7 @@ import {
     ClockCircleOutlined
 } from '@ant-design/icons';
 import { useNavigate } from 'react-router-dom';
-import api from '../config/api';
+import api, { API_BASE_URL } from '../config/api';
 
 const { Title, Text } = Typography;
 
@@ -38,6 +38,58 @@ const Dashboard = () => {
         fetchDashboardData();
     }, []);
 
+    // Nhận hoạt động mới qua SSE (dùng fetch vì EventSource không gắn được header Authorization)
+    useEffect(() => {
+        const controller = new AbortController();
+        let lastEventId = null;
+        let retryTimer = null;
+
+        const addActivity = (activity) => {
+            setStats(prev => {
+                if (prev.activities.some(a => a.seq === activity.seq)) return prev;
+                return { ...prev, activities: [activity, ...prev.activities].slice(0, 6) };
+            });
+        };
+
+        const connect = async () => {
+            try {
+                const headers = { Authorization: `Bearer ${localStorage.getItem('accessToken')}` };
+                if (lastEventId) headers['Last-Event-ID'] = lastEventId;
+                const res = await fetch(`${API_BASE_URL}/dashboard/activity/stream`, { headers, signal: controller.signal });
+                if (!res.ok) return;
+                const reader = res.body.getReader();
+                const decoder = new TextDecoder();
+                let buffer = '';
+                for (;;) {
+                    const { done, value } = await reader.read();
+                    if (done) break;
+                    buffer += decoder.decode(value, { stream: true }).replace(/\r/g, '');
+                    let end;
+                    while ((end = buffer.indexOf('\n\n')) >= 0) {
+                        const frame = buffer.slice(0, end);
+                        buffer = buffer.slice(end + 2);
+                        let data = '';
+                        for (const line of frame.split('\n')) {
+                            if (line.startsWith('id:')) lastEventId = line.slice(3).trim();
+                            else if (line.startsWith('data:')) data += line.slice(5);
+                        }
+                        if (data) addActivity(JSON.parse(data));
+                    }
+                }
+            } catch (error) {
+                if (controller.signal.aborted) return;
+            }
+            // Mất kết nối hoặc hết thời gian giữ kết nối: kết nối lại, nhận bù từ lastEventId
+            if (!controller.signal.aborted) retryTimer = setTimeout(connect, 3000);
+        };
+        connect();
+
+        return () => {
+            controller.abort();
+            clearTimeout(retryTimer);
+        };
+    }, []);
+
     const getActivityConfig = (type) => {
         switch (type) {
             case 'QUESTION': 